@@ -0,0 +1,217 @@
+package com.hackerrank.weather.benchmark;
+
+import com.hackerrank.weather.Application;
+import com.hackerrank.weather.service.WeatherService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the service in each {@code weather.server.threads} mode, at a fixed number of concurrent clients,
+ * while its database is slow, with or without admission control.
+ * <p>
+ * The service runs in this JVM, on a random port, over an H2 database behind {@link SlowDriver}, loaded with
+ * {@link WeatherDataset} records. Each client loops over requests, one at a time: {@code db-percent} of them are
+ * {@code GET /weather/<id>}, which needs a connection for {@code db-delay-ms}, the others
+ * {@code GET /weather?city=...}, served from the response cache, but for {@code unfiltered-percent} of them,
+ * {@code GET /weather?stream=true}, which reads and writes every record and is never cached. Throughput and latency
+ * percentiles of the successful requests, and the number of the others, are printed for each mode and request kind,
+ * measured after a warmup.
+ * <p>
+ * Options, as {@code --name=value}: {@code threads} ({@code platform}, {@code virtual} or {@code both}, the default),
+ * {@code clients} (1000), {@code seconds} (30), {@code warmup-seconds} (10), {@code db-delay-ms} (50),
+ * {@code db-percent} (10), {@code unfiltered-percent} (0), {@code records} (10000), {@code pool-size} (10),
+ * {@code admission} ({@code true}, {@code false}, the default, or {@code both}), which sets
+ * {@code weather.admission.enabled}, with a client rate high enough for every client of the test, which share an
+ * address. The {@code virtual} mode needs Java 21.
+ */
+public final class LoadTest {
+    private static final String[] KINDS = {"cached", "db", "unfiltered"};
+
+    private final int clients;
+    private final int seconds;
+    private final int warmupSeconds;
+    private final int dbDelayMillis;
+    private final int dbPercent;
+    private final int unfilteredPercent;
+    private final int records;
+    private final int poolSize;
+
+    private LoadTest(Map<String, String> options) {
+        clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup-seconds", "10"));
+        dbDelayMillis = Integer.parseInt(options.getOrDefault("db-delay-ms", "50"));
+        dbPercent = Integer.parseInt(options.getOrDefault("db-percent", "10"));
+        unfilteredPercent = Integer.parseInt(options.getOrDefault("unfiltered-percent", "0"));
+        records = Integer.parseInt(options.getOrDefault("records", "10000"));
+        poolSize = Integer.parseInt(options.getOrDefault("pool-size", "10"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        // Keeps one connection per client alive between requests.
+        System.setProperty("http.maxConnections", options.getOrDefault("clients", "1000"));
+
+        String threads = options.getOrDefault("threads", "both");
+        List<String> modes = threads.equals("both") ? Arrays.asList("platform", "virtual") : Collections.singletonList(threads);
+        String admission = options.getOrDefault("admission", "false");
+        List<Boolean> admissions = admission.equals("both")
+                ? Arrays.asList(false, true) : Collections.singletonList(Boolean.parseBoolean(admission));
+        LoadTest loadTest = new LoadTest(options);
+
+        List<String> lines = new ArrayList<>();
+        for (String mode : modes) {
+            for (boolean admitted : admissions) {
+                lines.addAll(loadTest.run(mode, admitted));
+            }
+        }
+
+        System.out.printf("%nJava %s, %d clients, %d s, %d%% of requests on a database taking %d ms per statement, "
+                        + "%d%% unfiltered, pool of %d%n",
+                System.getProperty("java.version"), loadTest.clients, loadTest.seconds, loadTest.dbPercent,
+                loadTest.dbDelayMillis, loadTest.unfilteredPercent, loadTest.poolSize);
+        System.out.printf("%-19s %-10s %10s %8s %10s %10s %10s %10s%n",
+                "mode", "kind", "requests/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        lines.forEach(System.out::println);
+    }
+
+    private List<String> run(String mode, boolean admission) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:slow:h2:mem:load-" + mode,
+                        "--spring.datasource.driver-class-name=" + SlowDriver.class.getName(),
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--weather.server.threads=" + mode,
+                        "--weather.admission.enabled=" + admission,
+                        "--weather.admission.client.rate=1000000",
+                        "--weather.admission.client.burst=1000000");
+        try {
+            SlowDriver.setDelayMillis(0);
+            WeatherService weatherService = context.getBean(WeatherService.class);
+            weatherService.saveAll(WeatherDataset.generate(records, false));
+            SlowDriver.setDelayMillis(dbDelayMillis);
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/weather";
+            return measure(admission ? mode + "+admission" : mode, base);
+        } finally {
+            context.close();
+        }
+    }
+
+    private List<String> measure(String mode, String base) throws InterruptedException {
+        int cities = WeatherDataset.getCityCount(records);
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+
+        Recorder[] recorders = new Recorder[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int client = 0; client < clients; client++) {
+            Recorder recorder = new Recorder();
+            recorders[client] = recorder;
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        int percent = random.nextInt(100);
+                        int kind = percent < dbPercent ? 1 : percent < dbPercent + unfilteredPercent ? 2 : 0;
+                        String url = kind == 1 ? base + "/" + (random.nextInt(records) + 1)
+                                : kind == 2 ? base + "?stream=true"
+                                : base + "?city=" + WeatherDataset.getCity(random.nextInt(cities));
+                        boolean ok = get(url);
+                        if (now >= measureFrom) {
+                            recorder.record(kind, System.nanoTime() - now, ok);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + client);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        List<String> lines = new ArrayList<>();
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            int count = 0;
+            long errors = 0;
+            for (Recorder recorder : recorders) {
+                count += recorder.counts[kind];
+                errors += recorder.errors[kind];
+            }
+            long[] latencies = new long[count];
+            int offset = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies[kind], 0, latencies, offset, recorder.counts[kind]);
+                offset += recorder.counts[kind];
+            }
+            Arrays.sort(latencies);
+            lines.add(String.format("%-19s %-10s %10.0f %8d %10.1f %10.1f %10.1f %10.1f", mode, KINDS[kind],
+                    (double) count / seconds, errors, percentile(latencies, 0.5), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), percentile(latencies, 1)));
+        }
+        return lines;
+    }
+
+    private static boolean get(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                try (InputStream in = body) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) >= 0) {
+                        // Drained, so that the connection is kept alive.
+                    }
+                }
+            }
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(quantile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+    /**
+     * Latencies of the successful requests of one client, and its errors, by request kind.
+     */
+    private static final class Recorder {
+        final long[][] latencies = {new long[1024], new long[1024], new long[1024]};
+        final int[] counts = new int[KINDS.length];
+        final long[] errors = new long[KINDS.length];
+
+        void record(int kind, long nanos, boolean ok) {
+            if (!ok) {
+                errors[kind]++;
+                return;
+            }
+            if (counts[kind] == latencies[kind].length) {
+                latencies[kind] = Arrays.copyOf(latencies[kind], counts[kind] * 2);
+            }
+            latencies[kind][counts[kind]++] = nanos;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.hackerrank.weather.benchmark;
+
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.store.LogWeatherStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to reopen a {@link LogWeatherStore} of {@code records} records, from its snapshot or, with
+ * {@code snapshot=false}, by replaying the whole log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LogRecoveryBenchmark {
+    private static final int LOAD_BATCH = 10_000;
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    @Param({"1000000"})
+    public int records;
+
+    @Param({"false", "true"})
+    public boolean snapshot;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("weather-store");
+        LogWeatherStore writer = new LogWeatherStore(directory.toString(), SEGMENT_BYTES, false, Integer.MAX_VALUE);
+        List<Weather> weathers = WeatherDataset.generate(records, false);
+        for (int from = 0; from < weathers.size(); from += LOAD_BATCH) {
+            writer.saveAll(weathers.subList(from, Math.min(from + LOAD_BATCH, weathers.size())));
+        }
+        // Closing takes the snapshot, which the other runs then go without.
+        writer.close();
+        if (!snapshot) {
+            Files.delete(directory.resolve("index.snapshot"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(directory.toFile());
+    }
+
+    /**
+     * The store is left open: closing it would write a snapshot for the next iteration.
+     */
+    @Benchmark
+    public LogWeatherStore open() throws IOException {
+        return new LogWeatherStore(directory.toString(), SEGMENT_BYTES, false, Integer.MAX_VALUE);
+    }
+}
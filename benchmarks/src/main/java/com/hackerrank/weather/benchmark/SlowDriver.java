@@ -0,0 +1,102 @@
+package com.hackerrank.weather.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver that delays every statement execution, to reproduce slow storage: {@code jdbc:slow:<url>}
+ * connects to {@code jdbc:<url>}, and sleeps {@link #setDelayMillis} before each execution, holding its connection.
+ */
+public final class SlowDriver implements Driver {
+    private static final String PREFIX = "jdbc:slow:";
+    private static volatile long delayMillis;
+
+    static {
+        try {
+            DriverManager.registerDriver(new SlowDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Connection connection = DriverManager.getConnection("jdbc:" + url.substring(PREFIX.length()), info);
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof CallableStatement) {
+                return proxy(CallableStatement.class, result, delaying(result));
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, result, delaying(result));
+            }
+            if (result instanceof Statement) {
+                return proxy(Statement.class, result, delaying(result));
+            }
+            return result;
+        });
+    }
+
+    static void setDelayMillis(long millis) {
+        delayMillis = millis;
+    }
+
+    private static InvocationHandler delaying(Object statement) {
+        return (target, method, args) -> {
+            if (method.getName().startsWith("execute") && delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            return invoke(statement, method, args);
+        };
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SlowDriver.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,66 @@
+package com.hackerrank.weather.benchmark;
+
+import com.hackerrank.weather.index.SpatialIndex;
+import com.hackerrank.weather.model.Weather;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /weather/nearby} and {@code GET /weather/nearest} through the {@link SpatialIndex} grid,
+ * against a linear haversine scan of every record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SpatialIndexBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int records;
+
+    @Param({"25", "250"})
+    public double radiusKm;
+
+    private List<Weather> weathers;
+    private SpatialIndex index;
+    private double lat;
+    private double lon;
+
+    @Setup
+    public void setUp() {
+        weathers = WeatherDataset.generate(records, true);
+        index = new SpatialIndex(0.5);
+        weathers.forEach(index::add);
+        index.loaded();
+
+        // Next to a station, so that the circle is not empty.
+        lat = weathers.get(0).getLat() + 0.05;
+        lon = weathers.get(0).getLon() - 0.05;
+    }
+
+    @Benchmark
+    public List<SpatialIndex.Neighbor> gridWithin() {
+        return index.findWithin(lat, lon, radiusKm, null);
+    }
+
+    @Benchmark
+    public List<SpatialIndex.Neighbor> gridNearest() {
+        return index.findNearest(lat, lon, 10, null);
+    }
+
+    @Benchmark
+    public List<Weather> linearScanWithin() {
+        List<Weather> matches = new ArrayList<>();
+        for (Weather weather : weathers) {
+            if (SpatialIndex.distanceKm(lat, lon, weather.getLat(), weather.getLon()) <= radiusKm) {
+                matches.add(weather);
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,175 @@
+package com.hackerrank.weather.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Time to first request and startup heap of the service, started in a new JVM in each mode:
+ * <ul>
+ * <li>{@code default}: {@code java -jar} of the executable jar, as the service is run by default;</li>
+ * <li>{@code fast}: the same with the {@code fast} profile;</li>
+ * <li>{@code fast-classpath}: the {@code fast} profile, from the plain jar and its dependencies on the classpath;</li>
+ * <li>{@code fast-cds}: the same with the class data sharing archive of the {@code cds} build profile.</li>
+ * </ul>
+ * Each run is measured by the {@code StartupCheck} of the service, from the start of the JVM to the response to
+ * its first {@code GET /weather}; the median of the runs is printed for each mode, with the heap used then.
+ * <p>
+ * Options, as {@code --name=value}: {@code modes} (all of them, comma-separated), {@code runs} (5), {@code java}
+ * (the java of this JVM; {@code fast-cds} needs the one that wrote the archive), {@code target}
+ * ({@code ../target}, where the jars, {@code classpath.txt} and {@code weather.jsa} are), and {@code jvm-args},
+ * added to every run, space-separated.
+ */
+public final class StartupTest {
+    private static final Pattern RESULT = Pattern.compile("first-request-ms=(\\d+) heap-used-bytes=(\\d+)");
+    private static final long TIMEOUT_SECONDS = 60;
+    private static final String MAIN_CLASS = "com.hackerrank.weather.Application";
+
+    private final List<String> modes;
+    private final int runs;
+    private final String java;
+    private final Path target;
+    private final List<String> jvmArgs;
+
+    private StartupTest(Map<String, String> options) {
+        modes = Arrays.asList(options.getOrDefault("modes", "default,fast,fast-classpath,fast-cds").split(","));
+        runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        java = options.getOrDefault("java", Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        target = Paths.get(options.getOrDefault("target", "../target"));
+        String jvmArgsOption = options.getOrDefault("jvm-args", "").trim();
+        jvmArgs = jvmArgsOption.isEmpty() ? Collections.emptyList() : Arrays.asList(jvmArgsOption.split(" +"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        new StartupTest(options).run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        System.out.printf("%n%s, %s, %d runs per mode%n", java, jvmArgs.isEmpty() ? "default options" : jvmArgs, runs);
+        System.out.printf("%-15s %18s %18s %16s%n", "mode", "first request ms", "(min - max)", "heap used MB");
+        for (String mode : modes) {
+            long[] millis = new long[runs];
+            long[] heapBytes = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                long[] result = start(command(mode));
+                millis[i] = result[0];
+                heapBytes[i] = result[1];
+            }
+            Arrays.sort(millis);
+            Arrays.sort(heapBytes);
+            System.out.printf("%-15s %18d %18s %16.1f%n", mode, millis[runs / 2],
+                    millis[0] + " - " + millis[runs - 1], heapBytes[runs / 2] / (1024.0 * 1024));
+        }
+    }
+
+    private List<String> command(String mode) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmArgs);
+        switch (mode) {
+            case "default":
+            case "fast":
+                command.add("-jar");
+                command.add(find("-exec.jar").toString());
+                break;
+            case "fast-cds":
+                command.add("-XX:SharedArchiveFile=" + target.resolve("weather.jsa"));
+                command.add("-Xshare:on");
+                // Falls through: the archive is only used with the classpath it was written with.
+            case "fast-classpath":
+                command.add("-classpath");
+                command.add(find(".jar") + File.pathSeparator
+                        + new String(Files.readAllBytes(target.resolve("classpath.txt")), StandardCharsets.UTF_8).trim());
+                command.add(MAIN_CLASS);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+        if (!mode.equals("default")) {
+            command.add("--spring.profiles.active=fast");
+        }
+        command.add("--weather.startup.check=true");
+        command.add("--server.port=0");
+        return command;
+    }
+
+    /**
+     * @return the jar of the service in {@code target} whose name ends with the suffix, and has no classifier
+     * when the suffix is {@code .jar}.
+     */
+    private Path find(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(target)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith("WeatherApi-") && name.endsWith(suffix)
+                        && (!suffix.equals(".jar") || !name.endsWith("-exec.jar"));
+            }).findFirst().orElseThrow(() -> new IllegalStateException("No WeatherApi*" + suffix + " in " + target));
+        }
+    }
+
+    /**
+     * @return the time to first request in ms and the heap used in bytes, as logged by the service.
+     */
+    private static long[] start(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> output = Collections.synchronizedList(new ArrayList<>());
+        Thread reader = readOutput(process, output);
+        if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            new ArrayList<>(output).forEach(System.err::println);
+            throw new IllegalStateException("The service did not stop within " + TIMEOUT_SECONDS + " s: " + command);
+        }
+        // The end of the output, still buffered when the process exited.
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+
+        long[] result = null;
+        for (String line : new ArrayList<>(output)) {
+            Matcher matcher = RESULT.matcher(line);
+            if (matcher.find()) {
+                result = new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))};
+            }
+        }
+        if (result == null || process.exitValue() != 0) {
+            new ArrayList<>(output).forEach(System.err::println);
+            throw new IllegalStateException("The service did not answer its startup check: " + command);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the output of the process on a thread of its own, so that a process that hangs is stopped by the
+     * timeout of {@link Process#waitFor(long, TimeUnit)} rather than blocking a read.
+     *
+     * @return the thread, which adds each line to {@code output} and ends with the output of the process.
+     */
+    private static Thread readOutput(Process process, List<String> output) {
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                for (String line; (line = in.readLine()) != null; ) {
+                    output.add(line);
+                }
+            } catch (IOException e) {
+                // The process was stopped.
+            }
+        }, "startup-output");
+        reader.setDaemon(true);
+        reader.start();
+        return reader;
+    }
+}
@@ -0,0 +1,95 @@
+package com.hackerrank.weather.benchmark;
+
+import com.hackerrank.weather.index.TemperatureRankIndex;
+import com.hackerrank.weather.model.TemperatureMetric;
+import com.hackerrank.weather.model.Weather;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /weather/top} and {@code GET /weather/threshold} through the {@link TemperatureRankIndex}, against a
+ * scan of the readings of every record, as a client of {@code GET /weather} would do.
+ * <p>
+ * The top query ranks the cities of one day by their daily max; the threshold query finds, over the whole
+ * dataset, the records with a reading above 40, about 2% of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TemperatureRankBenchmark {
+    private static final double THRESHOLD = 40;
+
+    @Param({"100000", "1000000"})
+    public int records;
+
+    @Param({"10", "100"})
+    public int k;
+
+    private List<Weather> weathers;
+    private TemperatureRankIndex index;
+    private LocalDate date;
+
+    @Setup
+    public void setUp() {
+        weathers = WeatherDataset.generate(records, true);
+        index = new TemperatureRankIndex();
+        weathers.forEach(index::add);
+        index.loaded();
+        date = WeatherDataset.FIRST_DAY.plusDays(WeatherDataset.RECORDS_PER_CITY / 2);
+    }
+
+    @Benchmark
+    public List<TemperatureRankIndex.Ranked> indexTop() {
+        return index.findTop(TemperatureMetric.MAX, date, date, k, true);
+    }
+
+    @Benchmark
+    public List<Weather> scanTop() {
+        int epochDay = (int) date.toEpochDay();
+        Map<String, Weather> hottestByCity = new HashMap<>();
+        Map<Weather, Double> maxes = new HashMap<>();
+        for (Weather weather : weathers) {
+            if (weather.getEpochDay() != epochDay) {
+                continue;
+            }
+            maxes.put(weather, Arrays.stream(weather.getTemperatures()).max().getAsDouble());
+            hottestByCity.merge(weather.getCityKey(), weather,
+                    (current, candidate) -> maxes.get(candidate) > maxes.get(current) ? candidate : current);
+        }
+        PriorityQueue<Weather> top = new PriorityQueue<>(Comparator.comparing(maxes::get));
+        for (Weather weather : hottestByCity.values()) {
+            top.add(weather);
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+        List<Weather> hottest = new ArrayList<>(top);
+        hottest.sort(Comparator.comparing(maxes::get, Comparator.reverseOrder()));
+        return hottest;
+    }
+
+    @Benchmark
+    public List<TemperatureRankIndex.Ranked> indexThreshold() {
+        return index.findWithin(TemperatureMetric.MAX, null, null, THRESHOLD, null, null, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Weather> scanThreshold() {
+        List<Weather> matches = new ArrayList<>();
+        for (Weather weather : weathers) {
+            for (double temperature : weather.getTemperatures()) {
+                if (temperature > THRESHOLD) {
+                    matches.add(weather);
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,84 @@
+package com.hackerrank.weather.benchmark;
+
+import com.hackerrank.weather.model.Weather;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Deterministic weather records for the benchmarks.
+ * <p>
+ * There is one station, and city, per {@link #RECORDS_PER_CITY} records, with one record per city and day
+ * from {@link #FIRST_DAY}. A city filter therefore returns about the same number of records whatever the
+ * size of the dataset.
+ */
+final class WeatherDataset {
+    static final int RECORDS_PER_CITY = 100;
+    static final LocalDate FIRST_DAY = LocalDate.of(2015, 1, 1);
+    private static final ZoneId ZONE_ID = ZoneId.of(Weather.TIME_ZONE);
+
+    private WeatherDataset() {
+    }
+
+    static int getCityCount(int records) {
+        return Math.max(1, records / RECORDS_PER_CITY);
+    }
+
+    static String getCity(int index) {
+        return "City" + index;
+    }
+
+    /**
+     * @param withIds whether to number the records from 1, as the repository would, or leave ids for it to assign.
+     */
+    static List<Weather> generate(int records, boolean withIds) {
+        return generate(records, getCityCount(records), withIds);
+    }
+
+    /**
+     * Same as {@link #generate(int, boolean)}, with the given number of cities instead of one per
+     * {@link #RECORDS_PER_CITY} records: {@code records / cities} days of all of them.
+     */
+    static List<Weather> generate(int records, int cities, boolean withIds) {
+        Random random = new Random(records);
+        float[] lats = new float[cities];
+        float[] lons = new float[cities];
+        for (int city = 0; city < cities; city++) {
+            lats[city] = (float) (random.nextDouble() * 140 - 70);
+            lons[city] = (float) (random.nextDouble() * 360 - 180);
+        }
+
+        List<Weather> weathers = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            int city = i % cities;
+            Weather weather = new Weather();
+            weather.setId(withIds ? i + 1 : null);
+            weather.setDate(Date.from(FIRST_DAY.plusDays(i / cities).atStartOfDay(ZONE_ID).toInstant()));
+            weather.setLat(lats[city]);
+            weather.setLon(lons[city]);
+            weather.setCity(getCity(city));
+            weather.setState("State" + city % 50);
+
+            double[] temperatures = new double[24];
+            for (int hour = 0; hour < temperatures.length; hour++) {
+                temperatures[hour] = Math.round((random.nextGaussian() * 8 + 15) * 10) / 10.0;
+            }
+            weather.setTemperatures(temperatures);
+            weathers.add(weather);
+        }
+        return weathers;
+    }
+
+    /**
+     * @return {@code count} cities spread over the dataset, with their case changed as clients may send them.
+     */
+    static List<String> pickCities(int records, int count) {
+        int cities = getCityCount(records);
+        List<String> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            picked.add(getCity((int) ((long) i * cities / count)).toUpperCase(Locale.ROOT));
+        }
+        return picked;
+    }
+}
@@ -0,0 +1,75 @@
+package com.hackerrank.weather.benchmark;
+
+import com.hackerrank.weather.index.WeatherReadModel;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * City filter and ordering of {@code GET /weather} over records already in memory: the original
+ * {@code findAll} then filter-and-sort path of {@code WeatherService}, against {@link WeatherReadModel}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class WeatherQueryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int records;
+
+    @Param({"1", "3", "10"})
+    public int cities;
+
+    @Param({"", "date", "-date"})
+    public String sort;
+
+    private List<Weather> weathers;
+    private List<String> cityList;
+    private WeatherReadModel readModel;
+    private WeatherQuery query;
+
+    @Setup
+    public void setUp() {
+        weathers = WeatherDataset.generate(records, true);
+        cityList = WeatherDataset.pickCities(records, cities);
+
+        readModel = new WeatherReadModel();
+        weathers.forEach(readModel::add);
+        readModel.loaded();
+        query = new WeatherQuery(null, null, cityList, WeatherSort.fromParameter(sort), null, null);
+    }
+
+    /**
+     * The filter and sort {@code WeatherService} ran in memory on the result of {@code findAll}.
+     */
+    @Benchmark
+    public List<Weather> findAllThenFilterAndSort() {
+        List<Weather> weatherList = new ArrayList<>(weathers);
+        weatherList = weatherList.stream()
+                .filter(weather -> cityList.stream().anyMatch(weather.getCity()::equalsIgnoreCase))
+                .collect(Collectors.toList());
+        if (sort.equals("date")) {
+            weatherList.sort(Comparator.comparing(Weather::getDate));
+        } else if (sort.equals("-date")) {
+            weatherList.sort(Comparator.comparing(Weather::getDate).reversed());
+        } else {
+            weatherList.sort(Comparator.comparing(Weather::getId));
+        }
+        return weatherList;
+    }
+
+    @Benchmark
+    public List<Weather> readModel() {
+        return readModel.find(query);
+    }
+}
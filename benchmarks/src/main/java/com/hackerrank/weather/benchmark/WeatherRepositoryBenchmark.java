@@ -0,0 +1,89 @@
+package com.hackerrank.weather.benchmark;
+
+import com.hackerrank.weather.Application;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import com.hackerrank.weather.service.WeatherService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link WeatherService} queries against the embedded H2 database, through the indexed JPA
+ * queries or, with {@code readModel=true}, through the in-memory read model.
+ * <p>
+ * Every city holds the same number of records whatever {@code records} is, so the {@code city} shape
+ * shows whether a query costs the size of its result or the size of the table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class WeatherRepositoryBenchmark {
+    private static final int LOAD_BATCH = 1000;
+
+    @Param({"10000", "100000"})
+    public int records;
+
+    @Param({"false", "true"})
+    public boolean readModel;
+
+    @Param({"city", "cities-date-sorted", "date", "range", "unfiltered"})
+    public String shape;
+
+    private ConfigurableApplicationContext context;
+    private WeatherService weatherService;
+    private WeatherQuery query;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--weather.read-model.enabled=" + readModel);
+        weatherService = context.getBean(WeatherService.class);
+
+        List<Weather> weathers = WeatherDataset.generate(records, false);
+        for (int from = 0; from < weathers.size(); from += LOAD_BATCH) {
+            weatherService.saveAll(weathers.subList(from, Math.min(from + LOAD_BATCH, weathers.size())));
+        }
+
+        switch (shape) {
+            case "city":
+                query = new WeatherQuery(null, null, WeatherDataset.pickCities(records, 1), WeatherSort.ID, null, null);
+                break;
+            case "cities-date-sorted":
+                query = new WeatherQuery(null, null, WeatherDataset.pickCities(records, 3), WeatherSort.DATE_DESC, null, null);
+                break;
+            case "date":
+                query = new WeatherQuery(WeatherDataset.FIRST_DAY.plusDays(10), WeatherDataset.FIRST_DAY.plusDays(10),
+                        null, WeatherSort.ID, null, null);
+                break;
+            case "range":
+                query = new WeatherQuery(WeatherDataset.FIRST_DAY.plusDays(10), WeatherDataset.FIRST_DAY.plusDays(12),
+                        null, WeatherSort.DATE_ASC, null, null);
+                break;
+            default:
+                query = new WeatherQuery(null, null, null, WeatherSort.ID, null, null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Weather> getFilteredWeatherList() {
+        return weatherService.getFilteredWeatherList(query);
+    }
+}
@@ -0,0 +1,121 @@
+package com.hackerrank.weather.benchmark;
+
+import com.hackerrank.weather.Application;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import com.hackerrank.weather.service.WeatherRollup;
+import com.hackerrank.weather.service.WeatherService;
+import com.hackerrank.weather.store.LogWeatherStore;
+import com.hackerrank.weather.store.WeatherStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Range queries over {@code years} of daily records of {@code cities} cities, each with 24 hourly temperatures,
+ * in each store, before and after {@link WeatherRollup} downsampled them all.
+ * <p>
+ * The storage they take is printed when the trial starts: the pages of the {@code weather} table, in an H2
+ * database on disk, for the {@code jpa} store, the size of its directory once compacted for the {@code log} store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class WeatherRollupBenchmark {
+    private static final int LOAD_BATCH = 1000;
+    /** Small enough for the log to free the space of downsampled readings, which it does by whole segments. */
+    private static final int SEGMENT_BYTES = 4 << 20;
+
+    @Param({"jpa", "log"})
+    public String store;
+
+    @Param({"100"})
+    public int cities;
+
+    @Param({"3"})
+    public int years;
+
+    @Param({"false", "true"})
+    public boolean rolledUp;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private WeatherStore weatherStore;
+    private WeatherQuery monthQuery;
+    private WeatherQuery cityYearQuery;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("weather-rollup");
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:" + directory.resolve("h2"),
+                        "--weather.store=" + store,
+                        "--weather.store.directory=" + directory,
+                        "--weather.store.segment-bytes=" + SEGMENT_BYTES);
+        weatherStore = context.getBean(WeatherStore.class);
+
+        LocalDate lastDay = WeatherDataset.FIRST_DAY.plusYears(years).minusDays(1);
+        int days = (int) (lastDay.toEpochDay() - WeatherDataset.FIRST_DAY.toEpochDay()) + 1;
+        List<Weather> weathers = WeatherDataset.generate(days * cities, cities, false);
+        for (int from = 0; from < weathers.size(); from += LOAD_BATCH) {
+            weatherStore.saveAll(weathers.subList(from, Math.min(from + LOAD_BATCH, weathers.size())));
+        }
+        if (rolledUp) {
+            new WeatherRollup(context.getBean(WeatherService.class), weatherStore, new SimpleMeterRegistry(), 0, 60, 500)
+                    .rollUpBefore(lastDay.plusDays(1));
+        }
+        System.out.printf("%n%s store of %d records, %s: %d bytes%n", store, weathers.size(),
+                rolledUp ? "downsampled" : "hourly", measureStorage());
+
+        LocalDate month = lastDay.withDayOfMonth(1);
+        monthQuery = new WeatherQuery(month, lastDay, null, WeatherSort.ID, null, null);
+        cityYearQuery = new WeatherQuery(lastDay.minusYears(1).plusDays(1), lastDay,
+                Collections.singletonList(WeatherDataset.getCity(0)), WeatherSort.DATE_ASC, null, null);
+    }
+
+    private long measureStorage() throws IOException {
+        if (weatherStore instanceof LogWeatherStore) {
+            ((LogWeatherStore) weatherStore).compact();
+            try (Stream<Path> files = Files.walk(directory)) {
+                return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+            }
+        }
+        return context.getBean(JdbcTemplate.class).queryForObject("select disk_space_used('WEATHER')", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory.toFile());
+    }
+
+    @Benchmark
+    public List<Weather> findMonth() {
+        return weatherStore.findAll(monthQuery);
+    }
+
+    @Benchmark
+    public List<Weather> findCityYear() {
+        return weatherStore.findAll(cityYearQuery);
+    }
+}
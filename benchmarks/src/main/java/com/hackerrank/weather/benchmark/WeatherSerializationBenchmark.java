@@ -0,0 +1,56 @@
+package com.hackerrank.weather.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackerrank.weather.format.WeatherFormat;
+import com.hackerrank.weather.model.Weather;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of {@link Weather} lists in each {@link WeatherFormat}, with the {@code @JsonFormat} date
+ * and the temperature array, using {@link ObjectMapper}s configured as Spring Boot configures them.
+ * The payload size of each format is printed when the trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherSerializationBenchmark {
+    private static final TypeReference<List<Weather>> WEATHER_LIST = new TypeReference<List<Weather>>() {
+    };
+
+    @Param({"100", "10000"})
+    public int records;
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public WeatherFormat format;
+
+    private ObjectMapper objectMapper;
+    private List<Weather> weathers;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = format.createObjectMapper(Jackson2ObjectMapperBuilder.json());
+        weathers = WeatherDataset.generate(records, true);
+        payload = objectMapper.writeValueAsBytes(weathers);
+        System.out.printf("%n%s payload of %d records: %d bytes%n", format, records, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(weathers);
+    }
+
+    @Benchmark
+    public List<Weather> deserialize() throws IOException {
+        return objectMapper.readValue(payload, WEATHER_LIST);
+    }
+}
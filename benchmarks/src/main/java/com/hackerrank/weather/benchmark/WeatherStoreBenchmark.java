@@ -0,0 +1,95 @@
+package com.hackerrank.weather.benchmark;
+
+import com.hackerrank.weather.Application;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import com.hackerrank.weather.store.WeatherStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write and read throughput of the {@code jpa} store, on the embedded H2 database, against the {@code log} store,
+ * with every write forced to disk.
+ * <p>
+ * {@code saveAll} appends batches of {@code batch} records to a store preloaded with {@code records};
+ * run it with {@code -t} above 1 to see the log group its {@code fsync}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class WeatherStoreBenchmark {
+    private static final int LOAD_BATCH = 1000;
+
+    @Param({"jpa", "log"})
+    public String store;
+
+    @Param({"100000"})
+    public int records;
+
+    @Param({"1", "500"})
+    public int batch;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private WeatherStore weatherStore;
+    private List<Weather> batches;
+    private WeatherQuery cityQuery;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("weather-store");
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--weather.store=" + store,
+                        "--weather.store.directory=" + directory);
+        weatherStore = context.getBean(WeatherStore.class);
+
+        List<Weather> weathers = WeatherDataset.generate(records, false);
+        for (int from = 0; from < weathers.size(); from += LOAD_BATCH) {
+            weatherStore.saveAll(weathers.subList(from, Math.min(from + LOAD_BATCH, weathers.size())));
+        }
+        batches = WeatherDataset.generate(Math.max(batch, WeatherDataset.RECORDS_PER_CITY), false);
+        cityQuery = new WeatherQuery(null, null, WeatherDataset.pickCities(records, 1), WeatherSort.ID, null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory.toFile());
+    }
+
+    @Benchmark
+    public List<Weather> saveAll() {
+        List<Weather> weathers = batches.subList(0, batch);
+        weathers.forEach(weather -> weather.setId(null));
+        return weatherStore.saveAll(weathers);
+    }
+
+    @Benchmark
+    public Optional<Weather> findById() {
+        return weatherStore.findById(ThreadLocalRandom.current().nextInt(records) + 1);
+    }
+
+    @Benchmark
+    public List<Weather> findByCity() {
+        return weatherStore.findAll(cityQuery);
+    }
+}
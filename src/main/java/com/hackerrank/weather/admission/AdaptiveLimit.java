@@ -0,0 +1,59 @@
+package com.hackerrank.weather.admission;
+
+/**
+ * A concurrency limit adapted to the observed latency, additive increase, multiplicative decrease: a request that
+ * completes within the target latency raises the limit by one, provided the limit was at least half used, and one
+ * that takes longer lowers it by a tenth. The limit stays between 1 and its maximum, where it starts.
+ * <p>
+ * The limit is lowered at most once per target latency: the requests admitted before it was lowered, and slowed
+ * by the same overload, would otherwise lower it again each, down to 1.
+ */
+final class AdaptiveLimit {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int maxLimit;
+    private final long latencyNanos;
+
+    private int limit;
+    private int inFlight;
+    private long loweredAt;
+
+    AdaptiveLimit(int maxLimit, long latencyNanos) {
+        this.maxLimit = maxLimit;
+        this.latencyNanos = latencyNanos;
+        this.limit = maxLimit;
+        this.loweredAt = System.nanoTime() - latencyNanos;
+    }
+
+    /**
+     * @return whether the request is admitted, in which case it must be {@link #release released}.
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    synchronized void release(long elapsedNanos, long now) {
+        boolean used = inFlight * 2 >= limit;
+        inFlight--;
+        if (elapsedNanos > latencyNanos) {
+            if (now - loweredAt > latencyNanos) {
+                limit = Math.max(1, (int) (limit * BACKOFF_RATIO));
+                loweredAt = now;
+            }
+        } else if (used && limit < maxLimit) {
+            limit++;
+        }
+    }
+
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,47 @@
+package com.hackerrank.weather.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts the {@link AdmissionControlFilter} in front of {@code /weather}, when {@code weather.admission.enabled} is
+ * true, with the {@code weather.admission.<class>.max-limit} and {@code weather.admission.<class>.latency-ms} of
+ * each {@link RequestClass}.
+ * <p>
+ * It runs after the filter timing {@code http.server.requests}, so that shed requests are recorded there too.
+ */
+@Configuration
+@ConditionalOnProperty(name = "weather.admission.enabled", havingValue = "true")
+public class AdmissionControlConfiguration {
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            Environment environment, MeterRegistry meterRegistry,
+            @Value("${weather.admission.client.rate}") double clientRate,
+            @Value("${weather.admission.client.burst}") double clientBurst,
+            @Value("${weather.admission.client.max-clients}") int maxClients,
+            @Value("${weather.admission.retry-after-seconds}") long retryAfterSeconds) {
+        Map<RequestClass, AdaptiveLimit> limits = new EnumMap<>(RequestClass.class);
+        for (RequestClass requestClass : RequestClass.values()) {
+            String prefix = "weather.admission." + requestClass.getTag();
+            limits.put(requestClass, new AdaptiveLimit(
+                    environment.getRequiredProperty(prefix + ".max-limit", Integer.class),
+                    TimeUnit.MILLISECONDS.toNanos(environment.getRequiredProperty(prefix + ".latency-ms", Long.class))));
+        }
+
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(limits, clientRate, clientBurst, maxClients, retryAfterSeconds, meterRegistry));
+        registration.addUrlPatterns("/weather", "/weather/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
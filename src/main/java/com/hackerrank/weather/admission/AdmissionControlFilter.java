@@ -0,0 +1,179 @@
+package com.hackerrank.weather.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Admits requests by the {@link RequestClass} of their estimated cost, and sheds the others before they reach a
+ * handler, so that a burst of expensive requests cannot hold every worker thread, nor every connection, that cheap
+ * ones need.
+ * <p>
+ * A request first takes the tokens of its class from the {@link TokenBucket} of its client, its remote address,
+ * or gets a {@code 429 (Too Many Requests)}. It is then admitted under the {@link AdaptiveLimit} of its class, or
+ * gets a {@code 503 (Service Unavailable)}. Both carry a {@code Retry-After} header, in seconds: the time until the
+ * client has the tokens, or {@code weather.admission.retry-after-seconds}. The latency that adapts the limit runs
+ * until the response is complete, including the streamed ones.
+ * <p>
+ * Requests are counted in {@code weather.admission.admitted} and {@code weather.admission.shed}, tagged with
+ * their {@code class}, and the {@code reason} they were shed: {@code rate} or {@code concurrency}. The limits and
+ * the requests in flight are gauged in {@code weather.admission.limit} and {@code weather.admission.in.flight}.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private final Map<RequestClass, AdaptiveLimit> limits;
+    private final Map<RequestClass, Counter> admittedCounters = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, Counter> rateShedCounters = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, Counter> concurrencyShedCounters = new EnumMap<>(RequestClass.class);
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final double clientRate;
+    private final double clientBurst;
+    private final int maxClients;
+    private final long retryAfterSeconds;
+    private volatile long evictedAt = System.nanoTime();
+
+    /**
+     * @param limits the limit of each class.
+     * @param clientRate, clientBurst the tokens a client gets per second, and may save.
+     * @param maxClients the number of clients above which those idle long enough for a full bucket are forgotten.
+     */
+    AdmissionControlFilter(Map<RequestClass, AdaptiveLimit> limits, double clientRate, double clientBurst,
+                           int maxClients, long retryAfterSeconds, MeterRegistry meterRegistry) {
+        this.limits = limits;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.maxClients = maxClients;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        for (RequestClass requestClass : RequestClass.values()) {
+            String tag = requestClass.getTag();
+            AdaptiveLimit limit = limits.get(requestClass);
+            admittedCounters.put(requestClass, Counter.builder("weather.admission.admitted")
+                    .description("Requests admitted")
+                    .tag("class", tag)
+                    .register(meterRegistry));
+            rateShedCounters.put(requestClass, shedCounter(meterRegistry, tag, "rate"));
+            concurrencyShedCounters.put(requestClass, shedCounter(meterRegistry, tag, "concurrency"));
+            gauge(meterRegistry, "weather.admission.limit", "Concurrency limit", tag, limit, AdaptiveLimit::getLimit);
+            gauge(meterRegistry, "weather.admission.in.flight", "Requests in flight", tag, limit,
+                    AdaptiveLimit::getInFlight);
+        }
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String tag, String reason) {
+        return Counter.builder("weather.admission.shed")
+                .description("Requests shed")
+                .tag("class", tag)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static void gauge(MeterRegistry meterRegistry, String name, String description, String tag,
+                              AdaptiveLimit limit, ToDoubleFunction<AdaptiveLimit> value) {
+        Gauge.builder(name, limit, value)
+                .description(description)
+                .tag("class", tag)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestClass requestClass = RequestClass.of(request);
+        long start = System.nanoTime();
+
+        long waitNanos = getBucket(request.getRemoteAddr(), start).tryTake(requestClass.getCost(), start);
+        if (waitNanos > 0) {
+            rateShedCounters.get(requestClass).increment();
+            shed(response, HttpStatus.TOO_MANY_REQUESTS, Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000));
+            return;
+        }
+        AdaptiveLimit limit = limits.get(requestClass);
+        if (!limit.tryAcquire()) {
+            concurrencyShedCounters.get(requestClass).increment();
+            shed(response, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+            return;
+        }
+        admittedCounters.get(requestClass).increment();
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(limit, start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                long end = System.nanoTime();
+                limit.release(end - start, end);
+            }
+        }
+    }
+
+    private TokenBucket getBucket(String client, long now) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients && now - evictedAt > TimeUnit.SECONDS.toNanos(1)) {
+            evictedAt = now;
+            buckets.values().removeIf(idle -> idle.isFull(now));
+        }
+        return buckets.computeIfAbsent(client, key -> new TokenBucket(clientRate, clientBurst, now));
+    }
+
+    private static void shed(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    /**
+     * Releases the limit of a streamed request once its response is complete, or has failed.
+     */
+    private static final class ReleasingListener implements AsyncListener {
+        private final AdaptiveLimit limit;
+        private final long start;
+
+        ReleasingListener(AdaptiveLimit limit, long start) {
+            this.limit = limit;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            long end = System.nanoTime();
+            limit.release(end - start, end);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Followed by onComplete.
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Followed by onComplete.
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Not restarted.
+        }
+    }
+}
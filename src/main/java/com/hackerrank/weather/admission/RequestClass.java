@@ -0,0 +1,65 @@
+package com.hackerrank.weather.admission;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.regex.Pattern;
+
+/**
+ * The classes of requests under admission control, by their estimated cost, each with its own concurrency limit.
+ * <p>
+ * The cost is also the number of tokens a request takes from the bucket of its client.
+ */
+public enum RequestClass {
+    /** {@code GET /weather} with none of its filters, nor a {@code limit}: the whole collection. */
+    UNFILTERED("unfiltered", 20),
+    /** The other queries: filtered or paged {@code GET /weather}, stats, spatial, rank queries and exports. */
+    FILTERED("filtered", 2),
+    /** {@code GET /weather/<id>}. */
+    BY_ID("by-id", 1),
+    /** {@code POST /weather/batch} and {@code POST /weather/exports}: many records written or read in one request. */
+    BULK("bulk", 20),
+    /** Every other method but {@code GET} and {@code HEAD}. */
+    WRITE("write", 1);
+
+    private static final Pattern BY_ID_PATH = Pattern.compile("/weather/\\d+");
+    private static final Pattern BULK_PATH = Pattern.compile("/weather/(batch|exports)/?");
+    private static final String[] FILTERS = {"date", "from", "to", "city", "limit"};
+
+    private final String tag;
+    private final int cost;
+
+    RequestClass(String tag, int cost) {
+        this.tag = tag;
+        this.cost = cost;
+    }
+
+    /**
+     * @return the name of the class in properties and metric tags.
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public static RequestClass of(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            return method.equals("POST") && BULK_PATH.matcher(path).matches() ? BULK : WRITE;
+        }
+        if (BY_ID_PATH.matcher(path).matches()) {
+            return BY_ID;
+        }
+        if (path.equals("/weather") || path.equals("/weather/")) {
+            for (String filter : FILTERS) {
+                if (request.getParameter(filter) != null) {
+                    return FILTERED;
+                }
+            }
+            return UNFILTERED;
+        }
+        return FILTERED;
+    }
+}
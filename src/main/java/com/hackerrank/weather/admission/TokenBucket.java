@@ -0,0 +1,49 @@
+package com.hackerrank.weather.admission;
+
+/**
+ * The request budget of one client: {@code rate} tokens per second, up to {@code burst} tokens saved.
+ */
+final class TokenBucket {
+    private final double tokensPerNano;
+    private final double burst;
+
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double rate, double burst, long now) {
+        this.tokensPerNano = rate / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    /**
+     * @return 0 if the tokens were taken, or else the nanoseconds after which they will be available.
+     */
+    synchronized long tryTake(int count, long now) {
+        refill(now);
+        if (tokens >= count) {
+            tokens -= count;
+            return 0;
+        }
+        return (long) Math.ceil((count - tokens) / tokensPerNano);
+    }
+
+    /**
+     * @return whether the bucket has refilled completely, so that forgetting it changes nothing.
+     */
+    synchronized boolean isFull(long now) {
+        refill(now);
+        return tokens >= burst;
+    }
+
+    /**
+     * Ignores a time older than the last refill, read by a concurrent caller before it.
+     */
+    private void refill(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.hackerrank.weather.cache;
+
+import com.hackerrank.weather.format.WeatherFormat;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.service.WeatherDroppedEvent;
+import com.hackerrank.weather.service.WeatherSavedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, least-recently-used cache of serialized {@code GET /weather} responses, keyed by the
+ * {@link WeatherFormat} and the normalized query: days, sorted lower-cased cities, sort and page.
+ * <p>
+ * Every committed write, and every drop of expired records, clears it. A response computed while a write was in flight is not cached,
+ * so a stale body can never be served after the write returned.
+ * <p>
+ * Hits, misses and evictions are counted in the {@code weather.cache.*} meters.
+ */
+@Component
+public class WeatherResponseCache {
+    private final Map<String, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final int maxEntryBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public WeatherResponseCache(@Value("${weather.cache.max-entries:1000}") int maxEntries,
+                                @Value("${weather.cache.max-entry-bytes:1048576}") int maxEntryBytes,
+                                MeterRegistry meterRegistry) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.hits = meterRegistry.counter("weather.cache.hits");
+        this.misses = meterRegistry.counter("weather.cache.misses");
+        this.evictions = meterRegistry.counter("weather.cache.evictions");
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        meterRegistry.gauge("weather.cache.size", entries, cached -> {
+            synchronized (cached) {
+                return cached.size();
+            }
+        });
+    }
+
+    public static String keyOf(WeatherFormat format, WeatherQuery query) {
+        return format.name()
+                + '|' + query.getFromDay().map(String::valueOf).orElse("")
+                + '|' + query.getToDay().map(String::valueOf).orElse("")
+                + '|' + query.getCityKeys().map(cityKeys -> String.join(",", new TreeSet<>(cityKeys))).orElse("")
+                + '|' + query.getSort()
+                + '|' + query.getAfter().map(after -> after.encode()).orElse("")
+                + '|' + query.getLimit().map(String::valueOf).orElse("");
+    }
+
+    /**
+     * @return the cached response for {@code key}, or {@code null} on a miss.
+     */
+    public Entry get(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        (entry == null ? misses : hits).increment();
+        return entry;
+    }
+
+    /**
+     * @return the current write generation, to be read before computing a response that is then {@link #put}.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a response computed at {@code generation}, unless a write has been committed since.
+     */
+    public void put(String key, long generation, Entry entry) {
+        if (entry.getBody().length > maxEntryBytes) {
+            return;
+        }
+        synchronized (entries) {
+            if (this.generation.get() == generation) {
+                entries.put(key, entry);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWeatherSaved(WeatherSavedEvent event) {
+        clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWeatherDropped(WeatherDroppedEvent event) {
+        clear();
+    }
+
+    private void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public static final class Entry {
+        private final byte[] body;
+        private final String eTag;
+        private final String nextCursor;
+
+        public Entry(byte[] body, String nextCursor) {
+            this.body = body;
+            this.eTag = "\"0" + DigestUtils.md5DigestAsHex(body) + '"';
+            this.nextCursor = nextCursor;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return the {@code after} cursor of the next page, or {@code null} if this is the last page.
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+}
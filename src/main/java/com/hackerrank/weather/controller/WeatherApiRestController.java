@@ -1,64 +1,516 @@
 package com.hackerrank.weather.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hackerrank.weather.cache.WeatherResponseCache;
+import com.hackerrank.weather.export.WeatherExporter;
+import com.hackerrank.weather.format.WeatherFormat;
+import com.hackerrank.weather.format.WeatherFormatConfiguration;
+import com.hackerrank.weather.model.StatsBucket;
+import com.hackerrank.weather.model.TemperatureMetric;
 import com.hackerrank.weather.model.Weather;
-import com.hackerrank.weather.repository.WeatherRepository;
+import com.hackerrank.weather.model.WeatherCursor;
+import com.hackerrank.weather.model.WeatherExport;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import com.hackerrank.weather.service.WeatherBatchService;
 import com.hackerrank.weather.service.WeatherService;
+import com.hackerrank.weather.service.WeatherWriteBehind;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/weather")
 public class WeatherApiRestController {
+    static final String NDJSON_VALUE = "application/x-ndjson";
+    // Request attributes through which Tomcat sends a file itself, with sendfile(2), once the servlet returns.
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 
-
-    private final WeatherRepository weatherRepository;
     private final WeatherService weatherService;
+    private final WeatherBatchService weatherBatchService;
+    private final Optional<WeatherWriteBehind> writeBehind;
+    private final WeatherResponseCache responseCache;
+    private final WeatherExporter exporter;
+    private final WeatherFormatConfiguration formats;
+    private final ObjectMapper objectMapper;
+    private final Timer serializationTimer;
+
+    @Value("${weather.page.max-limit:1000}")
+    private int maxLimit;
 
     @Autowired
-    public WeatherApiRestController(WeatherRepository weatherRepository, WeatherService weatherService) {
-        this.weatherRepository = weatherRepository;
+    public WeatherApiRestController(WeatherService weatherService, WeatherBatchService weatherBatchService,
+                                    Optional<WeatherWriteBehind> writeBehind, WeatherResponseCache responseCache,
+                                    WeatherExporter exporter, WeatherFormatConfiguration formats,
+                                    MeterRegistry meterRegistry) {
         this.weatherService = weatherService;
+        this.weatherBatchService = weatherBatchService;
+        this.writeBehind = writeBehind;
+        this.responseCache = responseCache;
+        this.exporter = exporter;
+        this.formats = formats;
+        this.objectMapper = formats.getObjectMapper(WeatherFormat.JSON);
+        this.serializationTimer = meterRegistry.timer("weather.serialization");
     }
 
     /**
      * {@code POST  /weather}  : Creates a new weather.
      * <p>
      * Creates a new weather,
+     * or, when the {@link WeatherWriteBehind} is enabled, queues it for insertion. Any id in the body is ignored.
+     * The weather can be sent, and is returned, in any {@link WeatherFormat}.
      * @param weather the valid weather to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the created weather.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the created weather,
+     * with status {@code 202 (Accepted)} and with body the queued weather and its id, which is not a promise
+     * that it will be stored: a queued weather whose insert fails is logged, counted in {@code weather.ingest.dropped}
+     * and lost,
+     * with status {@code 400 (Bad Request)} if its day was dropped by the retention,
+     * or with status {@code 503 (Service Unavailable)} and a {@code Retry-After} header if the queue is full.
      */
     @PostMapping
     public ResponseEntity<?> saveWeather (@Valid @RequestBody Weather weather){
-        Weather createdWeather = weatherRepository.save(weather);
+        // Ids only come from the sequence: one sent by the client could collide with those it hands out later.
+        weather.setId(null);
+        if(writeBehind.isPresent()){
+            if(!writeBehind.get().offer(weather)){
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+            }
+            return new ResponseEntity<>(weather, HttpStatus.ACCEPTED);
+        }
+        Weather createdWeather;
+        try {
+            createdWeather = weatherService.save(weather);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
         return new ResponseEntity<>(createdWeather, HttpStatus.CREATED);
     }
 
+    /**
+     * {@code POST  /weather/batch}  : Creates many weathers.
+     * <p>
+     * Takes a JSON array or newline-delimited JSON ({@code application/x-ndjson}) of weathers, which is
+     * parsed and saved as it is read. The response is a JSON array, written as batches are saved, with
+     * one {@code {"index", "id"}} or {@code {"index", "error"}} object per item of the payload.
+     *
+     * @param request the request whose body holds the weathers to create.
+     * @param response the response the per-item results are written to, with status {@code 200 (OK)}.
+     */
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE})
+    public void saveWeatherBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            generator.writeStartArray();
+            weatherBatchService.saveAll(request.getInputStream(), result -> {
+                try {
+                    writer.writeValue(generator, result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
     /**
      * {@code GET /weather} : get all weather.
+     * <p>
+     * When {@code limit} is given, at most {@code limit} records are returned and, if there may be more,
+     * a {@code Link: <...>; rel="next"} header carries the {@code after} cursor of the next page.
+     * <p>
+     * The body is JSON, or the {@link WeatherFormat} preferred by the {@code Accept} header.
+     * Serialized responses are kept in the {@link WeatherResponseCache} until the next write, and carry an
+     * {@code ETag}: a matching {@code If-None-Match} gets a {@code 304 (Not Modified)}.
      *
-     * @param date, city, sort @optionals the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all weathers.
+     * @param date, city, sort @optionals the filter and ordering.
+     * @param from, to @optionals the inclusive range of days of the weathers to return.
+     * @param limit, after @optionals the keyset pagination information.
+     * @param accept @optional the media types accepted by the client.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all weathers,
+     * with status {@code 400 (Bad Request)} if {@code limit} or {@code after} are invalid,
+     * or with status {@code 406 (Not Acceptable)} if no format is acceptable.
      */
     @GetMapping
-    ResponseEntity<List<Weather>> getWeatherList(@RequestParam(name = "date", required = false)
-                                                 @DateTimeFormat(pattern = "yyyy-MM-dd")Optional<Date> date,
-                                                 @RequestParam(name = "city",required = false) Optional<List<String>> city,
-                                                 @RequestParam(name = "sort", required = false) Optional<String> sort) {
+    ResponseEntity<byte[]> getWeatherList(@RequestParam(name = "date", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> date,
+                                          @RequestParam(name = "from", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> from,
+                                          @RequestParam(name = "to", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> to,
+                                          @RequestParam(name = "city",required = false) Optional<List<String>> city,
+                                          @RequestParam(name = "sort", required = false) Optional<String> sort,
+                                          @RequestParam(name = "limit", required = false) Optional<Integer> limit,
+                                          @RequestParam(name = "after", required = false) Optional<String> after,
+                                          @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept)
+            throws IOException, HttpMediaTypeNotAcceptableException {
+
+        WeatherQuery query = getWeatherQuery(date, from, to, city, sort, limit, after);
+        WeatherFormat format = negotiate(accept);
+
+        String key = WeatherResponseCache.keyOf(format, query);
+        WeatherResponseCache.Entry response = responseCache.get(key);
+        if(response == null){
+            long generation = responseCache.getGeneration();
+            List<Weather> filteredWeatherList = weatherService
+                    .getFilteredWeatherList(query);
+
+            String next = null;
+            if(query.getLimit().isPresent() && filteredWeatherList.size() == query.getLimit().get()){
+                next = WeatherCursor.of(filteredWeatherList.get(filteredWeatherList.size() - 1)).encode();
+            }
+
+            Timer.Sample serialization = Timer.start();
+            byte[] body = formats.getObjectMapper(format).writeValueAsBytes(filteredWeatherList);
+            serialization.stop(serializationTimer);
+
+            response = new WeatherResponseCache.Entry(body, next);
+            responseCache.put(key, generation, response);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(format.getMediaType());
+        headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT));
+        headers.setETag(response.getETag());
+        if(response.getNextCursor() != null){
+            headers.add(HttpHeaders.LINK, nextLink(response.getNextCursor()));
+        }
+
+        return new ResponseEntity<>(response.getBody(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * {@code GET /weather?stream=true} : get all weather, streamed.
+     * <p>
+     * Takes the same parameters as {@link #getWeatherList}, but writes the records to the response as they
+     * are read from the database instead of collecting them first, so the heap stays flat whatever the
+     * size of the result.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all weathers,
+     * with status {@code 400 (Bad Request)} if {@code limit} or {@code after} are invalid,
+     * or with status {@code 406 (Not Acceptable)} if no format is acceptable.
+     */
+    @GetMapping(params = "stream=true")
+    ResponseEntity<StreamingResponseBody> streamWeatherList(@RequestParam(name = "date", required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> date,
+                                                            @RequestParam(name = "from", required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> from,
+                                                            @RequestParam(name = "to", required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> to,
+                                                            @RequestParam(name = "city",required = false) Optional<List<String>> city,
+                                                            @RequestParam(name = "sort", required = false) Optional<String> sort,
+                                                            @RequestParam(name = "limit", required = false) Optional<Integer> limit,
+                                                            @RequestParam(name = "after", required = false) Optional<String> after,
+                                                            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept)
+            throws HttpMediaTypeNotAcceptableException {
+
+        WeatherQuery query = getWeatherQuery(date, from, to, city, sort, limit, after);
+        WeatherFormat format = negotiate(accept);
+        ObjectMapper formatMapper = formats.getObjectMapper(format);
 
-        List<Weather> filteredWeatherList = weatherService
-                .getFilteredWeatherList(date, city, sort);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = formatMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                ObjectWriter writer = formatMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                weatherService.streamFilteredWeatherList(query, weather -> {
+                    try {
+                        writer.writeValue(generator, weather);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
 
-        return new ResponseEntity<>(filteredWeatherList, HttpStatus.OK);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    /**
+     * {@code GET /weather/stats} : get temperature aggregates.
+     * <p>
+     * Reports the min, max and mean of the temperatures of each city per day, week or month. Aggregates are
+     * kept up to date as weathers are saved, so a request costs the number of buckets it returns.
+     *
+     * @param city @optional the cities to report, case insensitive; all cities when absent.
+     * @param from, to @optionals the inclusive range of days; buckets that overlap it are reported.
+     * @param bucket {@code day} (the default), {@code week} or {@code month}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the aggregates ordered by city
+     * then bucket, with status {@code 400 (Bad Request)} for an unknown bucket, or with status
+     * {@code 503 (Service Unavailable)} while the aggregates are being loaded.
+     */
+    @GetMapping("/stats")
+    ResponseEntity<?> getTemperatureStats(@RequestParam(name = "city", required = false) Optional<List<String>> city,
+                                          @RequestParam(name = "from", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> from,
+                                          @RequestParam(name = "to", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> to,
+                                          @RequestParam(name = "bucket", defaultValue = "day") String bucket) {
+
+        StatsBucket statsBucket;
+        try {
+            statsBucket = StatsBucket.valueOf(bucket.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<String> cityKeys = city.map(cities -> cities.stream().map(Weather::toCityKey).collect(Collectors.toList()))
+                .orElse(null);
+        try {
+            return new ResponseEntity<>(weatherService.getTemperatureStats(cityKeys, statsBucket,
+                    from.orElse(null), to.orElse(null)), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * {@code GET /weather/nearby} : get the weathers around a point.
+     *
+     * @param lat, lon the point, in degrees.
+     * @param radiusKm the radius of the circle around the point, in kilometers.
+     * @param date @optional only weathers of this day are returned when given.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the weathers within the circle,
+     * nearest first then by id, at most {@code weather.page.max-limit} of them, with status {@code 400 (Bad Request)} for an invalid point or radius, or with status
+     * {@code 503 (Service Unavailable)} while the spatial index is being loaded.
+     */
+    @GetMapping("/nearby")
+    ResponseEntity<?> getNearbyWeatherList(@RequestParam(name = "lat") double lat,
+                                           @RequestParam(name = "lon") double lon,
+                                           @RequestParam(name = "radiusKm") double radiusKm,
+                                           @RequestParam(name = "date", required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> date) {
+
+        if(!isValidPoint(lat, lon) || !(radiusKm > 0)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(weatherService.getNearbyWeatherList(lat, lon, radiusKm, date.orElse(null), maxLimit), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * {@code GET /weather/nearest} : get the weathers nearest to a point.
+     *
+     * @param lat, lon the point, in degrees.
+     * @param k the number of weathers to return, at most {@code weather.page.max-limit}.
+     * @param date @optional only weathers of this day are returned when given.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the {@code k} nearest weathers,
+     * nearest first then by id, with status {@code 400 (Bad Request)} for an invalid point or {@code k}, or with status
+     * {@code 503 (Service Unavailable)} while the spatial index is being loaded.
+     */
+    @GetMapping("/nearest")
+    ResponseEntity<?> getNearestWeatherList(@RequestParam(name = "lat") double lat,
+                                            @RequestParam(name = "lon") double lon,
+                                            @RequestParam(name = "k", defaultValue = "1") int k,
+                                            @RequestParam(name = "date", required = false)
+                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> date) {
+
+        if(!isValidPoint(lat, lon) || k < 1){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(weatherService.getNearestWeatherList(lat, lon, Math.min(k, maxLimit), date.orElse(null)), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * {@code GET /weather/top} : get the hottest, or coldest, cities.
+     *
+     * @param by the daily temperature to rank by: {@code max} (the default), {@code min} or {@code mean}.
+     * @param order {@code desc} (the default) for the highest values first, or {@code asc} for the lowest.
+     * @param k the number of cities to return, at most {@code weather.page.max-limit}.
+     * @param date, from, to @optionals the days to rank; the ranges are intersected.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the best weather of each of the
+     * {@code k} best cities, best first, with status {@code 400 (Bad Request)} for an invalid parameter, or with status
+     * {@code 503 (Service Unavailable)} while the rank index is being loaded.
+     */
+    @GetMapping("/top")
+    ResponseEntity<?> getTopWeatherList(@RequestParam(name = "by", defaultValue = "max") String by,
+                                        @RequestParam(name = "order", defaultValue = "desc") String order,
+                                        @RequestParam(name = "k", defaultValue = "10") int k,
+                                        @RequestParam(name = "date", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> date,
+                                        @RequestParam(name = "from", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> from,
+                                        @RequestParam(name = "to", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> to) {
+
+        Optional<TemperatureMetric> metric = toMetric(by);
+        if(!metric.isPresent() || !(order.equals("desc") || order.equals("asc")) || k < 1){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(weatherService.getTopWeatherList(metric.get(), latest(date, from), earliest(date, to),
+                    Math.min(k, maxLimit), order.equals("desc")), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * {@code GET /weather/threshold} : get the weathers whose daily temperature crossed a threshold.
+     *
+     * @param by the daily temperature to compare: {@code max} (the default), {@code min} or {@code mean}.
+     * @param above, below @optionals the exclusive bounds of the temperature; at least one of them is required.
+     * @param date, from, to @optionals the days to search; the ranges are intersected.
+     * @param limit, after @optionals the keyset pagination information, as for {@link #getWeatherList}; pages hold
+     * at most {@code weather.page.max-limit} records, whether {@code limit} is given or not.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the matching weathers, by date then
+     * id, with status {@code 400 (Bad Request)} for an invalid parameter, or with status
+     * {@code 503 (Service Unavailable)} while the rank index is being loaded.
+     */
+    @GetMapping("/threshold")
+    ResponseEntity<?> getThresholdWeatherList(@RequestParam(name = "by", defaultValue = "max") String by,
+                                              @RequestParam(name = "above", required = false) Optional<Double> above,
+                                              @RequestParam(name = "below", required = false) Optional<Double> below,
+                                              @RequestParam(name = "date", required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> date,
+                                              @RequestParam(name = "from", required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> from,
+                                              @RequestParam(name = "to", required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> to,
+                                              @RequestParam(name = "limit", required = false) Optional<Integer> limit,
+                                              @RequestParam(name = "after", required = false) Optional<String> after) {
+
+        Optional<TemperatureMetric> metric = toMetric(by);
+        double lower = above.orElse(Double.NEGATIVE_INFINITY);
+        double upper = below.orElse(Double.POSITIVE_INFINITY);
+        if(!metric.isPresent() || !(above.isPresent() || below.isPresent()) || !(lower < upper)
+                || (limit.isPresent() && limit.get() < 1)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        WeatherCursor cursor = toCursor(after);
+        int pageSize = Math.min(limit.orElse(maxLimit), maxLimit);
+        List<Weather> weathers;
+        try {
+            weathers = weatherService.getThresholdWeatherList(metric.get(), latest(date, from), earliest(date, to),
+                    above.orElse(null), below.orElse(null), cursor, pageSize);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        if(weathers.size() == pageSize){
+            headers.add(HttpHeaders.LINK, nextLink(WeatherCursor.of(weathers.get(weathers.size() - 1)).encode()));
+        }
+        return new ResponseEntity<>(weathers, headers, HttpStatus.OK);
+    }
+
+    /**
+     * {@code POST /weather/exports} : export the weathers to a gzip CSV file, in the background.
+     *
+     * @param after @optional only the weathers with a greater id are exported when given, for incremental exports.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)}, a {@code Location} header and with body
+     * the export, whose {@code lastId} is the {@code after} of the next incremental export once it is done.
+     */
+    @PostMapping("/exports")
+    ResponseEntity<WeatherExport> startExport(@RequestParam(name = "after", required = false) Optional<Integer> after) {
+        WeatherExport export = exporter.start(after.orElse(null));
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().replaceQuery(null)
+                        .path("/{name}").buildAndExpand(export.getName()).toUri())
+                .body(export);
+    }
+
+    /**
+     * {@code GET /weather/exports} : get the exports, oldest first.
+     */
+    @GetMapping("/exports")
+    ResponseEntity<List<WeatherExport>> getExports() {
+        return new ResponseEntity<>(exporter.list(), HttpStatus.OK);
+    }
+
+    /**
+     * {@code GET /weather/exports/<name>} : download an export.
+     * <p>
+     * The file is handed to Tomcat, which sends it from the page cache to the socket without copying it
+     * through the JVM; elsewhere it is transferred from a {@link FileChannel}.
+     *
+     * @param name the name of the export.
+     * @param response the response the file is written to, with status {@code 200 (OK)}, with status
+     * {@code 503 (Service Unavailable)} and a {@code Retry-After} header while the export runs, or with status
+     * {@code 404 (Not Found)} if there is no such export or it failed.
+     */
+    @GetMapping("/exports/{name:.+}")
+    void getExport(@PathVariable String name, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<WeatherExport> export = exporter.get(name);
+        if(export.isPresent() && export.get().getStatus() == WeatherExport.Status.RUNNING){
+            response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        Optional<Path> file = exporter.find(name);
+        if(!file.isPresent()){
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+
+        long size = Files.size(file.get());
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"");
+        response.setContentLengthLong(size);
+        if(Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))){
+            request.setAttribute(SENDFILE_FILENAME, file.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.get())) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = 0; position < size; ) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
     }
 
     /**
      * {@code GET /weather/<id>} : get the weather whith the provided id.
+     * <p>
+     * With {@code weather.ingest.read-your-writes=true}, weathers still queued by the {@link WeatherWriteBehind} are found.
      *
      * @param id of the weather to find.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the weather whith provided id, or with status {@code 404 (Not Found)}.
@@ -66,12 +518,79 @@ public class WeatherApiRestController {
     @GetMapping("/{id}")
     ResponseEntity<?> getWeatherById(@PathVariable int id) {
 
-        Optional<Weather> weather = weatherRepository.findById(id);
+        Optional<Weather> weather = writeBehind.flatMap(queue -> queue.findQueued(id));
+        if(!weather.isPresent()){
+            weather = weatherService.findById(id);
+        }
         if(!weather.isPresent()){
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         return new ResponseEntity<>(weather, HttpStatus.OK);
     }
 
+    private static WeatherFormat negotiate(String accept) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            throw new HttpMediaTypeNotAcceptableException(e.getMessage());
+        }
+        Optional<WeatherFormat> format = WeatherFormat.negotiate(accepted);
+        if(!format.isPresent()){
+            throw new HttpMediaTypeNotAcceptableException(Arrays.stream(WeatherFormat.values())
+                    .map(WeatherFormat::getMediaType).collect(Collectors.toList()));
+        }
+        return format.get();
+    }
+
+    private static boolean isValidPoint(double lat, double lon) {
+        return lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180;
+    }
+
+    private static Optional<TemperatureMetric> toMetric(String by) {
+        try {
+            return Optional.of(TemperatureMetric.valueOf(by.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
 
+    // date is the range of a single day, intersected with from and to when they are also given.
+    private static LocalDate latest(Optional<LocalDate> date, Optional<LocalDate> from) {
+        return Stream.of(date, from).filter(Optional::isPresent).map(Optional::get)
+                .max(Comparator.naturalOrder()).orElse(null);
+    }
+
+    private static LocalDate earliest(Optional<LocalDate> date, Optional<LocalDate> to) {
+        return Stream.of(date, to).filter(Optional::isPresent).map(Optional::get)
+                .min(Comparator.naturalOrder()).orElse(null);
+    }
+
+    private WeatherQuery getWeatherQuery(Optional<LocalDate> date, Optional<LocalDate> from, Optional<LocalDate> to,
+                                         Optional<List<String>> city, Optional<String> sort,
+                                         Optional<Integer> limit, Optional<String> after) {
+        if(limit.isPresent() && limit.get() < 1){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+
+        return new WeatherQuery(latest(date, from), earliest(date, to), city.orElse(null),
+                WeatherSort.fromParameter(sort.orElse(null)), toCursor(after),
+                limit.map(value -> Math.min(value, maxLimit)).orElse(null));
+    }
+
+    private static WeatherCursor toCursor(Optional<String> after) {
+        try {
+            return after.map(WeatherCursor::decode).orElse(null);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed after cursor", e);
+        }
+    }
+
+    /**
+     * @return a {@code Link} header value for the current request with its {@code after} parameter set to {@code cursor}.
+     */
+    private static String nextLink(String cursor) {
+        return "<" + ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", cursor).toUriString() + ">; rel=\"next\"";
+    }
 }
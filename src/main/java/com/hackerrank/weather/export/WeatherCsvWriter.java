@@ -0,0 +1,91 @@
+package com.hackerrank.weather.export;
+
+import com.hackerrank.weather.model.TemperatureRollup;
+import com.hackerrank.weather.model.Weather;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes records as CSV rows: {@code id, date, lat, lon, city, state}, the four rollup columns, then one fixed
+ * column per hourly reading, {@code t00} to {@code t23}. The readings past the 24th, if any, go space-separated in
+ * a last {@code more} column, so that nothing is lost. Empty cells are absent values.
+ */
+class WeatherCsvWriter {
+    static final int TEMPERATURE_COLUMNS = 24;
+
+    private final Writer writer;
+    private final StringBuilder row = new StringBuilder(512);
+
+    WeatherCsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    void writeHeader() throws IOException {
+        row.setLength(0);
+        row.append("id,date,lat,lon,city,state,rollup_min,rollup_max,rollup_mean,rollup_count");
+        for (int hour = 0; hour < TEMPERATURE_COLUMNS; hour++) {
+            row.append(hour < 10 ? ",t0" : ",t").append(hour);
+        }
+        row.append(",more\n");
+        writer.write(row.toString());
+    }
+
+    void write(Weather weather) throws IOException {
+        row.setLength(0);
+        row.append(weather.getId()).append(',');
+        append(weather.getLocalDate()).append(',');
+        append(weather.getLat()).append(',');
+        append(weather.getLon()).append(',');
+        appendText(weather.getCity()).append(',');
+        appendText(weather.getState());
+
+        TemperatureRollup rollup = weather.getRollup();
+        if (rollup == null) {
+            row.append(",,,,");
+        } else {
+            row.append(',');
+            append(rollup.getMin()).append(',');
+            append(rollup.getMax()).append(',');
+            append(rollup.getMean()).append(',');
+            append(rollup.getCount());
+        }
+
+        double[] temperatures = weather.getTemperatures();
+        int count = temperatures == null ? 0 : temperatures.length;
+        for (int hour = 0; hour < TEMPERATURE_COLUMNS; hour++) {
+            row.append(',');
+            if (hour < count) {
+                row.append(temperatures[hour]);
+            }
+        }
+        row.append(',');
+        for (int i = TEMPERATURE_COLUMNS; i < count; i++) {
+            if (i > TEMPERATURE_COLUMNS) {
+                row.append(' ');
+            }
+            row.append(temperatures[i]);
+        }
+        row.append('\n');
+        writer.write(row.toString());
+    }
+
+    private StringBuilder append(Object value) {
+        return value == null ? row : row.append(value);
+    }
+
+    /**
+     * Quotes values holding a separator, a quote or a line break, and doubles their quotes.
+     */
+    private StringBuilder appendText(String value) {
+        if (value == null) {
+            return row;
+        }
+        boolean quoted = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quoted) {
+            return row.append(value);
+        }
+        return row.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,227 @@
+package com.hackerrank.weather.export;
+
+import com.hackerrank.weather.model.WeatherCursor;
+import com.hackerrank.weather.model.WeatherExport;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import com.hackerrank.weather.store.WeatherStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the weather collection, or the records after a given id, to gzip CSV files under
+ * {@code weather.export.directory}, one at a time in the background.
+ * <p>
+ * Records are streamed from the {@link WeatherStore} in id order and written as they are read, so that an export
+ * holds one record at a time whatever the size of the collection. A file is written under a temporary name and
+ * renamed once complete, after a {@code .properties} file beside it that keeps its {@code lastId} and number of
+ * records. Files left from a previous run are listed again at startup, and unfinished ones deleted.
+ * Exported records are counted in {@code weather.export.records}.
+ */
+@Service
+public class WeatherExporter {
+    private static final Logger log = LoggerFactory.getLogger(WeatherExporter.class);
+    static final String SUFFIX = ".csv.gz";
+    static final String PROPERTIES_SUFFIX = ".properties";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final Pattern NAME = Pattern.compile("weather-after-(\\d+)-\\d+" + Pattern.quote(SUFFIX));
+    private static final String LAST_ID = "lastId";
+    private static final String RECORDS = "records";
+
+    private final WeatherStore weatherStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final Counter recordsCounter;
+    private final Map<String, WeatherExport> exports = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public WeatherExporter(WeatherStore weatherStore, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                           @Value("${weather.export.directory:exports}") String directory) throws IOException {
+        this.weatherStore = weatherStore;
+        this.transactionTemplate = transactionTemplate;
+        this.directory = Paths.get(directory);
+        this.recordsCounter = Counter.builder("weather.export.records")
+                .description("Records written to export files")
+                .register(meterRegistry);
+        listFiles();
+    }
+
+    private void listFiles() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                Matcher matcher = NAME.matcher(name);
+                if (name.endsWith(TEMPORARY_SUFFIX)) {
+                    Files.delete(file);
+                } else if (name.endsWith(SUFFIX + PROPERTIES_SUFFIX)) {
+                    // The properties of an export that did not complete.
+                    if (!Files.exists(directory.resolve(name.substring(0, name.length() - PROPERTIES_SUFFIX.length())))) {
+                        Files.delete(file);
+                    }
+                } else if (matcher.matches()) {
+                    int afterId = Integer.parseInt(matcher.group(1));
+                    WeatherExport export = new WeatherExport(name, afterId == 0 ? null : afterId, WeatherExport.Status.DONE);
+                    export.setBytes(Files.size(file));
+                    readProperties(export);
+                    exports.put(name, export);
+                }
+            }
+        }
+    }
+
+    /**
+     * Restores the {@code lastId} and number of records of a finished export, which files written before they
+     * were kept lack.
+     */
+    private void readProperties(WeatherExport export) throws IOException {
+        Path file = directory.resolve(export.getName() + PROPERTIES_SUFFIX);
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        String lastId = properties.getProperty(LAST_ID);
+        export.setLastId(lastId == null ? null : Integer.valueOf(lastId));
+        String records = properties.getProperty(RECORDS);
+        export.setRecords(records == null ? null : Long.valueOf(records));
+    }
+
+    private void writeProperties(String name, Integer lastId, long records) throws IOException {
+        Properties properties = new Properties();
+        if (lastId != null) {
+            properties.setProperty(LAST_ID, lastId.toString());
+        }
+        properties.setProperty(RECORDS, Long.toString(records));
+        try (OutputStream out = Files.newOutputStream(directory.resolve(name + PROPERTIES_SUFFIX))) {
+            properties.store(out, null);
+        }
+    }
+
+    /**
+     * Queues an export.
+     *
+     * @param afterId @optional only the records with a greater id are exported when given.
+     * @return the export, {@link WeatherExport.Status#RUNNING} until its file can be {@link #find found}.
+     */
+    public WeatherExport start(Integer afterId) {
+        String name = "weather-after-" + (afterId == null ? 0 : afterId) + "-" + System.currentTimeMillis() + SUFFIX;
+        WeatherExport export = new WeatherExport(name, afterId, WeatherExport.Status.RUNNING);
+        exports.put(name, export);
+        executor.execute(() -> {
+            try {
+                write(export);
+            } catch (IOException | RuntimeException e) {
+                export.setStatus(WeatherExport.Status.FAILED);
+                log.error("Could not export weather records to {}", name, e);
+            }
+        });
+        return export;
+    }
+
+    /**
+     * @return the exports, oldest first.
+     */
+    public List<WeatherExport> list() {
+        List<WeatherExport> list = new ArrayList<>(exports.values());
+        list.sort(Comparator.comparing(WeatherExport::getName, Comparator.comparing(WeatherExporter::getStartTime)));
+        return list;
+    }
+
+    public Optional<WeatherExport> get(String name) {
+        return Optional.ofNullable(exports.get(name));
+    }
+
+    /**
+     * @return the file of a finished export.
+     */
+    public Optional<Path> find(String name) {
+        return get(name).filter(export -> export.getStatus() == WeatherExport.Status.DONE)
+                .map(export -> directory.resolve(export.getName()))
+                .filter(Files::isRegularFile);
+    }
+
+    private void write(WeatherExport export) throws IOException {
+        long start = System.nanoTime();
+        Path file = directory.resolve(export.getName());
+        Path temporary = directory.resolve(export.getName() + TEMPORARY_SUFFIX);
+        WeatherCursor after = export.getAfterId() == null ? null : new WeatherCursor(0, export.getAfterId());
+        WeatherQuery query = new WeatherQuery(null, null, null, WeatherSort.ID, after, null);
+
+        Files.createDirectories(directory);
+        long[] records = {0};
+        Integer[] lastId = {export.getAfterId()};
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                new FileOutputStream(temporary.toFile()), 1 << 16), StandardCharsets.UTF_8), 1 << 16)) {
+            WeatherCsvWriter csv = new WeatherCsvWriter(writer);
+            csv.writeHeader();
+            transactionTemplate.execute(status -> {
+                weatherStore.forEach(query, weather -> {
+                    try {
+                        csv.write(weather);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    records[0]++;
+                    lastId[0] = weather.getId();
+                });
+                return null;
+            });
+            writeProperties(export.getName(), lastId[0], records[0]);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            Files.deleteIfExists(directory.resolve(export.getName() + PROPERTIES_SUFFIX));
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+
+        recordsCounter.increment(records[0]);
+        export.setRecords(records[0]);
+        export.setLastId(lastId[0]);
+        export.setBytes(Files.size(file));
+        export.setStatus(WeatherExport.Status.DONE);
+        log.info("Exported {} weather records to {} ({} bytes) in {} ms", records[0], file, export.getBytes(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static long getStartTime(String name) {
+        String withoutSuffix = name.substring(0, name.length() - SUFFIX.length());
+        return Long.parseLong(withoutSuffix.substring(withoutSuffix.lastIndexOf('-') + 1));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,59 @@
+package com.hackerrank.weather.format;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Writes {@code double} arrays, such as temperatures, as the shortest decimals that read back as the same
+ * {@code double}, up to {@link #MAX_SCALE} fraction digits, which binary formats encode in a few bytes where a
+ * {@code double} takes eight: a CBOR decimal fraction (tag 4) or a Smile big decimal. Other values are written
+ * as {@code double}s. Decoders read both as numbers, so the standard {@code double[]} deserializer reads them back.
+ */
+class DecimalArraySerializer extends StdSerializer<double[]> {
+    static final int MAX_SCALE = 3;
+    private static final double[] POWERS_OF_TEN = {1, 10, 100, 1000};
+    /** Beyond 2^53, not every unscaled value is a {@code double}. */
+    private static final double MAX_UNSCALED = 1L << 53;
+
+    DecimalArraySerializer() {
+        super(double[].class);
+    }
+
+    static Module module() {
+        return new SimpleModule(DecimalArraySerializer.class.getSimpleName())
+                .addSerializer(double[].class, new DecimalArraySerializer());
+    }
+
+    @Override
+    public void serialize(double[] values, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartArray(values.length);
+        for (double value : values) {
+            writeDecimal(generator, value);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeDecimal(JsonGenerator generator, double value) throws IOException {
+        for (int scale = 0; scale <= MAX_SCALE; scale++) {
+            double unscaled = Math.rint(value * POWERS_OF_TEN[scale]);
+            // The quotient of two exact doubles is correctly rounded, as is the decoding of the decimal.
+            // -0.0 is equal to 0, but no decimal keeps its sign.
+            if (Math.abs(unscaled) < MAX_UNSCALED && unscaled / POWERS_OF_TEN[scale] == value
+                    && (value != 0 || 1 / value > 0)) {
+                if (scale == 0) {
+                    generator.writeNumber((long) unscaled);
+                } else {
+                    generator.writeNumber(BigDecimal.valueOf((long) unscaled, scale));
+                }
+                return;
+            }
+        }
+        generator.writeNumber(value);
+    }
+}
@@ -0,0 +1,75 @@
+package com.hackerrank.weather.format;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Representations of weathers, negotiated with the {@code Accept} and {@code Content-Type} headers.
+ * <p>
+ * The binary formats carry the same fields as the JSON one, but repeated property names, and with Smile repeated
+ * strings such as cities and dates, are sent once, and temperatures are written as decimal fractions by the
+ * {@link DecimalArraySerializer}.
+ */
+public enum WeatherFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(new MediaType("application", "x-jackson-smile"));
+
+    private final MediaType mediaType;
+
+    WeatherFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param builder the builder of the JSON {@link ObjectMapper}, whose settings are kept.
+     * @return an {@link ObjectMapper} that reads and writes this format.
+     */
+    public ObjectMapper createObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        switch (this) {
+            case CBOR:
+                return builder.factory(new CBORFactory()).build()
+                        .registerModule(DecimalArraySerializer.module());
+            case SMILE:
+                return builder.factory(new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)).build()
+                        .registerModule(DecimalArraySerializer.module());
+            default:
+                return builder.build();
+        }
+    }
+
+    /**
+     * @param accepted the media types of an {@code Accept} header, JSON being the default when empty.
+     * @return the format preferred by the client, or none if it accepts none of them.
+     */
+    public static Optional<WeatherFormat> negotiate(List<MediaType> accepted) {
+        if (accepted.isEmpty()) {
+            return Optional.of(JSON);
+        }
+        List<MediaType> sorted = new ArrayList<>(accepted);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        for (MediaType mediaType : sorted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (WeatherFormat format : values()) {
+                if (mediaType.isCompatibleWith(format.mediaType)) {
+                    return Optional.of(format);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
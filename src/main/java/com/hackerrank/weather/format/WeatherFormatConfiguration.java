@@ -0,0 +1,44 @@
+package com.hackerrank.weather.format;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Builds an {@link ObjectMapper} for each {@link WeatherFormat} from the one Spring Boot configures for JSON, and
+ * registers the message converters of the binary formats with them, so that request and response bodies are read
+ * and written in the negotiated format.
+ */
+@Configuration
+public class WeatherFormatConfiguration {
+    private final Map<WeatherFormat, ObjectMapper> objectMappers = new EnumMap<>(WeatherFormat.class);
+
+    @Autowired
+    public WeatherFormatConfiguration(ObjectMapper objectMapper, ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        for (WeatherFormat format : WeatherFormat.values()) {
+            objectMappers.put(format, format == WeatherFormat.JSON ? objectMapper : format.createObjectMapper(builders.getObject()));
+        }
+    }
+
+    public ObjectMapper getObjectMapper(WeatherFormat format) {
+        return objectMappers.get(format);
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(getObjectMapper(WeatherFormat.CBOR));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(getObjectMapper(WeatherFormat.SMILE));
+    }
+}
@@ -0,0 +1,254 @@
+package com.hackerrank.weather.index;
+
+import com.hackerrank.weather.model.Weather;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Grid of {@code weather.geo.cell-degrees} wide cells over the stations of the weather collection.
+ * <p>
+ * Each cell holds the stations, distinct {@code (lat, lon)} pairs, that fall in it, and each station the
+ * ids of its records by epoch day. A radius query only visits the cells overlapping the bounding box of the
+ * circle and computes one haversine distance per station in them, so its cost follows the density of
+ * stations around the point, not the size of the collection. Records without a position or a date are left out.
+ * A record saved again, at another position or day, leaves its previous one.
+ */
+@Component
+public class SpatialIndex implements WeatherIndex {
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final double HALF_CIRCUMFERENCE_KM = Math.PI * EARTH_RADIUS_KM;
+
+    private final double cellDegrees;
+    private final int columns;
+    private final Map<Long, Map<Long, Station>> stationsByCell = new ConcurrentHashMap<>();
+    /** Where each record is, to remove it when the record is saved again. */
+    private final Map<Integer, Position> positionsById = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public SpatialIndex(@Value("${weather.geo.cell-degrees:0.5}") double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void loaded() {
+        ready = true;
+    }
+
+    @Override
+    public void add(Weather weather) {
+        int id = weather.getId();
+        positionsById.compute(id, (key, previous) -> {
+            Position position = weather.getLat() == null || weather.getLon() == null || weather.getEpochDay() == null
+                    ? null
+                    : new Position(weather.getLat(), weather.getLon(), weather.getEpochDay());
+            if (previous != null) {
+                if (previous.isAt(position)) {
+                    return previous;
+                }
+                Map<Long, Station> stations = stationsByCell.get(getCell(previous));
+                Station station = stations == null ? null : stations.get(previous.getStationKey());
+                if (station != null) {
+                    station.remove(previous.epochDay, id);
+                }
+            }
+            if (position == null) {
+                return null;
+            }
+
+            stationsByCell.computeIfAbsent(getCell(position), cell -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(position.getStationKey(), stationKey -> new Station(position.lat, position.lon))
+                    .add(position.epochDay, id);
+            return position;
+        });
+    }
+
+    @Override
+    public void dropBefore(int epochDay) {
+        stationsByCell.values().forEach(stations -> stations.values().forEach(station -> station.dropBefore(epochDay)));
+        positionsById.values().removeIf(position -> position.epochDay < epochDay);
+    }
+
+    /**
+     * @param date @optional only records of this day are returned when given.
+     * @return the records within {@code radiusKm} of the point, nearest first then by id.
+     */
+    public List<Neighbor> findWithin(double lat, double lon, double radiusKm, LocalDate date) {
+        List<Neighbor> neighbors = new ArrayList<>();
+        Long epochDay = date == null ? null : date.toEpochDay();
+
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        int firstRow = getRow(Math.max(-90, lat - latDelta));
+        int lastRow = getRow(Math.min(90, lat + latDelta));
+
+        // Near the poles, or for huge circles, the box spans every longitude.
+        double cosLat = Math.cos(Math.toRadians(Math.min(90, Math.abs(lat) + latDelta)));
+        double lonDelta = cosLat <= 0 ? 180 : radiusKm / (KM_PER_DEGREE * cosLat);
+        int columnSpan = lonDelta >= 180 ? columns : (int) Math.ceil(2 * lonDelta / cellDegrees) + 1;
+        int firstColumn = lonDelta >= 180 ? 0 : getColumn(lon - lonDelta);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int offset = 0; offset < Math.min(columnSpan, columns); offset++) {
+                Map<Long, Station> stations = stationsByCell.get(getCell(row, (firstColumn + offset) % columns));
+                if (stations == null) {
+                    continue;
+                }
+                for (Station station : stations.values()) {
+                    double distance = distanceKm(lat, lon, station.lat, station.lon);
+                    if (distance <= radiusKm) {
+                        station.collect(epochDay, distance, neighbors);
+                    }
+                }
+            }
+        }
+
+        neighbors.sort(Comparator.comparingDouble(Neighbor::getDistanceKm).thenComparingInt(Neighbor::getId));
+        return neighbors;
+    }
+
+    /**
+     * Widens a radius query from one cell until it holds {@code k} records or covers the globe.
+     *
+     * @param date @optional only records of this day are returned when given.
+     * @return the {@code k} records nearest to the point, nearest first then by id.
+     */
+    public List<Neighbor> findNearest(double lat, double lon, int k, LocalDate date) {
+        double radiusKm = cellDegrees * KM_PER_DEGREE;
+        while (true) {
+            List<Neighbor> neighbors = findWithin(lat, lon, radiusKm, date);
+            if (neighbors.size() >= k || radiusKm >= HALF_CIRCUMFERENCE_KM) {
+                return neighbors.subList(0, Math.min(k, neighbors.size()));
+            }
+            radiusKm *= 2;
+        }
+    }
+
+    /**
+     * @return the great-circle distance between two points, by the haversine formula.
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double a = sinLat * sinLat + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int getRow(double lat) {
+        return (int) Math.floor((lat + 90) / cellDegrees);
+    }
+
+    private int getColumn(double lon) {
+        return Math.floorMod((int) Math.floor((lon + 180) / cellDegrees), columns);
+    }
+
+    private static long getCell(int row, int column) {
+        return ((long) row << 32) | column;
+    }
+
+    private long getCell(Position position) {
+        return getCell(getRow(position.lat), getColumn(position.lon));
+    }
+
+    public static final class Neighbor {
+        private final int id;
+        private final double distanceKm;
+
+        Neighbor(int id, double distanceKm) {
+            this.id = id;
+            this.distanceKm = distanceKm;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    private static final class Station {
+        private final float lat;
+        private final float lon;
+        private final ConcurrentNavigableMap<Long, int[]> idsByDay = new ConcurrentSkipListMap<>();
+
+        Station(float lat, float lon) {
+            this.lat = lat;
+            this.lon = lon;
+        }
+
+        void add(long epochDay, int id) {
+            // Copy-on-write: a station rarely has more than one record a day.
+            idsByDay.compute(epochDay, (day, ids) -> {
+                if (ids == null) {
+                    return new int[]{id};
+                }
+                for (int existing : ids) {
+                    if (existing == id) {
+                        return ids;
+                    }
+                }
+                int[] copy = Arrays.copyOf(ids, ids.length + 1);
+                copy[ids.length] = id;
+                return copy;
+            });
+        }
+
+        void remove(long epochDay, int id) {
+            idsByDay.computeIfPresent(epochDay, (day, ids) -> {
+                int[] kept = Arrays.stream(ids).filter(existing -> existing != id).toArray();
+                return kept.length == 0 ? null : kept;
+            });
+        }
+
+        void dropBefore(long epochDay) {
+            idsByDay.headMap(epochDay).clear();
+        }
+
+        void collect(Long epochDay, double distance, List<Neighbor> neighbors) {
+            Collection<int[]> days = epochDay == null
+                    ? idsByDay.values()
+                    : Collections.singleton(idsByDay.getOrDefault(epochDay, new int[0]));
+            for (int[] ids : days) {
+                for (int id : ids) {
+                    neighbors.add(new Neighbor(id, distance));
+                }
+            }
+        }
+    }
+
+    /**
+     * The station and day a record is indexed under.
+     */
+    private static final class Position {
+        private final float lat;
+        private final float lon;
+        private final long epochDay;
+
+        Position(float lat, float lon, long epochDay) {
+            this.lat = lat;
+            this.lon = lon;
+            this.epochDay = epochDay;
+        }
+
+        long getStationKey() {
+            return ((long) Float.floatToIntBits(lat) << 32) | (Float.floatToIntBits(lon) & 0xffffffffL);
+        }
+
+        boolean isAt(Position other) {
+            return other != null && getStationKey() == other.getStationKey() && epochDay == other.epochDay;
+        }
+    }
+}
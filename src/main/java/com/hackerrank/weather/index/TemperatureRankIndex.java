@@ -0,0 +1,206 @@
+package com.hackerrank.weather.index;
+
+import com.hackerrank.weather.model.TemperatureMetric;
+import com.hackerrank.weather.model.TemperatureRollup;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherCursor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Records ranked by the daily max, min and mean of their temperatures, per day.
+ * <p>
+ * The summary of a record is computed once, as it is saved, from its readings or its rollup, and the record
+ * is kept in one sorted set per metric and day. A threshold query reads the tail of the sets of the days in
+ * its range; a top-K query merges their heads through a heap holding one entry per day. Neither looks at
+ * the readings, and their cost follows the number of days and of records returned, not the size of the
+ * collection. Undated records are left out.
+ */
+@Component
+public class TemperatureRankIndex implements WeatherIndex {
+    private final Map<TemperatureMetric, ConcurrentNavigableMap<Integer, NavigableSet<Ranked>>> byMetric =
+            new EnumMap<>(TemperatureMetric.class);
+    /** The entries of each record, to remove them when it is saved again. */
+    private final Map<Integer, Summary> summariesById = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public TemperatureRankIndex() {
+        for (TemperatureMetric metric : TemperatureMetric.values()) {
+            byMetric.put(metric, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void loaded() {
+        ready = true;
+    }
+
+    @Override
+    public void add(Weather weather) {
+        TemperatureRollup rollup = weather.getRollup() != null
+                ? weather.getRollup()
+                : TemperatureRollup.of(weather.getTemperatures());
+        int id = weather.getId();
+        summariesById.compute(id, (key, previous) -> {
+            if (previous != null) {
+                for (TemperatureMetric metric : TemperatureMetric.values()) {
+                    NavigableSet<Ranked> set = byMetric.get(metric).get(previous.epochDay);
+                    if (set != null) {
+                        set.remove(previous.get(metric));
+                    }
+                }
+            }
+            if (rollup == null || weather.getEpochDay() == null) {
+                return null;
+            }
+            Summary summary = new Summary(weather.getEpochDay(), weather.getCityKey(), id, rollup);
+            for (TemperatureMetric metric : TemperatureMetric.values()) {
+                byMetric.get(metric).computeIfAbsent(summary.epochDay, day -> new ConcurrentSkipListSet<>())
+                        .add(summary.get(metric));
+            }
+            return summary;
+        });
+    }
+
+    @Override
+    public void dropBefore(int epochDay) {
+        byMetric.values().forEach(days -> days.headMap(epochDay).clear());
+        summariesById.values().removeIf(summary -> summary.epochDay < epochDay);
+    }
+
+    /**
+     * @param from, to @optionals the inclusive range of days.
+     * @param highest whether to rank the highest values first, or the lowest.
+     * @return the best record of each of the {@code k} best cities, best first.
+     */
+    public List<Ranked> findTop(TemperatureMetric metric, LocalDate from, LocalDate to, int k, boolean highest) {
+        Comparator<Ranked> order = highest ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head head) -> head.ranked, order));
+        for (NavigableSet<Ranked> set : getDays(metric, from, to).values()) {
+            Iterator<Ranked> iterator = highest ? set.descendingIterator() : set.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+
+        List<Ranked> top = new ArrayList<>(k);
+        Set<String> cityKeys = new HashSet<>();
+        while (top.size() < k && !heads.isEmpty()) {
+            Head head = heads.poll();
+            if (cityKeys.add(head.ranked.cityKey)) {
+                top.add(head.ranked);
+            }
+            if (head.iterator.hasNext()) {
+                heads.add(new Head(head.iterator.next(), head.iterator));
+            }
+        }
+        return top;
+    }
+
+    /**
+     * @param from, to @optionals the inclusive range of days.
+     * @param above, below @optionals the exclusive bounds of the values to return.
+     * @param after @optional the keyset position of the last record of the previous page.
+     * @param limit the number of records after which the search stops.
+     * @return the matching records, by date then id, from {@code after} on.
+     */
+    public List<Ranked> findWithin(TemperatureMetric metric, LocalDate from, LocalDate to, Double above, Double below,
+                                   WeatherCursor after, int limit) {
+        Ranked lower = new Ranked(above == null ? Double.NEGATIVE_INFINITY : above, Integer.MAX_VALUE, null);
+        Ranked upper = new Ranked(below == null ? Double.POSITIVE_INFINITY : below, Integer.MIN_VALUE, null);
+        int first = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        if (after != null) {
+            first = Math.max(first, after.getEpochDay());
+        }
+        List<Ranked> matches = new ArrayList<>();
+        for (Map.Entry<Integer, NavigableSet<Ranked>> day : getDays(metric, first, to).entrySet()) {
+            List<Ranked> dayMatches = new ArrayList<>(day.getValue().subSet(lower, false, upper, false));
+            dayMatches.sort(Comparator.comparingInt(Ranked::getId));
+            for (Ranked match : dayMatches) {
+                if (after != null && day.getKey() == after.getEpochDay() && match.getId() <= after.getId()) {
+                    continue;
+                }
+                matches.add(match);
+                if (matches.size() == limit) {
+                    return matches;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private NavigableMap<Integer, NavigableSet<Ranked>> getDays(TemperatureMetric metric, LocalDate from, LocalDate to) {
+        return getDays(metric, from == null ? Integer.MIN_VALUE : (int) from.toEpochDay(), to);
+    }
+
+    private NavigableMap<Integer, NavigableSet<Ranked>> getDays(TemperatureMetric metric, int first, LocalDate to) {
+        int last = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        return first > last ? Collections.emptyNavigableMap() : byMetric.get(metric).subMap(first, true, last, true);
+    }
+
+    /**
+     * A record and the value of one metric for it, ordered by value then id.
+     */
+    public static final class Ranked implements Comparable<Ranked> {
+        private final double value;
+        private final int id;
+        private final String cityKey;
+
+        Ranked(double value, int id, String cityKey) {
+            this.value = value;
+            this.id = id;
+            this.cityKey = cityKey;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public int compareTo(Ranked other) {
+            int byValue = Double.compare(value, other.value);
+            return byValue != 0 ? byValue : Integer.compare(id, other.id);
+        }
+    }
+
+    private static final class Head {
+        final Ranked ranked;
+        final Iterator<Ranked> iterator;
+
+        Head(Ranked ranked, Iterator<Ranked> iterator) {
+            this.ranked = ranked;
+            this.iterator = iterator;
+        }
+    }
+
+    private static final class Summary {
+        final int epochDay;
+        final Ranked[] ranked = new Ranked[TemperatureMetric.values().length];
+
+        Summary(int epochDay, String cityKey, int id, TemperatureRollup rollup) {
+            this.epochDay = epochDay;
+            for (TemperatureMetric metric : TemperatureMetric.values()) {
+                ranked[metric.ordinal()] = new Ranked(metric.of(rollup), id, cityKey);
+            }
+        }
+
+        Ranked get(TemperatureMetric metric) {
+            return ranked[metric.ordinal()];
+        }
+    }
+}
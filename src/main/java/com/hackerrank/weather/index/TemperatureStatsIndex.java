@@ -0,0 +1,184 @@
+package com.hackerrank.weather.index;
+
+import com.hackerrank.weather.model.StatsBucket;
+import com.hackerrank.weather.model.TemperatureRollup;
+import com.hackerrank.weather.model.TemperatureStats;
+import com.hackerrank.weather.model.Weather;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Running min/max/sum/count of the temperatures of each city, per day, week and month.
+ * <p>
+ * Every bucket size has its own map, keyed by the epoch day of the bucket start, so that a range is
+ * answered by visiting its buckets only, whatever the number of records behind them. Records are
+ * folded in as they are saved, or as their rollup once downsampled; a record saved again, such as an update or its
+ * downsampled version, replaces its previous contribution. Records without a date or a city are left out.
+ * Buckets are removed whole when their records are dropped.
+ */
+@Component
+public class TemperatureStatsIndex implements WeatherIndex {
+    private final Map<StatsBucket, Map<String, ConcurrentNavigableMap<Long, Accumulator>>> buckets = new EnumMap<>(StatsBucket.class);
+    private final Map<String, String> cityNames = new ConcurrentHashMap<>();
+    /** The contribution of each record, to remove it when the record is saved again. */
+    private final Map<Integer, Contribution> contributionsById = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public TemperatureStatsIndex() {
+        for (StatsBucket bucket : StatsBucket.values()) {
+            buckets.put(bucket, new ConcurrentHashMap<>());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void loaded() {
+        ready = true;
+    }
+
+    @Override
+    public void add(Weather weather) {
+        double[] temperatures = weather.getTemperatures();
+        TemperatureRollup rollup = weather.getRollup() != null
+                ? weather.getRollup()
+                : TemperatureRollup.of(temperatures);
+        int id = weather.getId();
+        contributionsById.compute(id, (key, previous) -> {
+            if (previous != null) {
+                buckets.forEach((bucket, byCity) -> {
+                    ConcurrentNavigableMap<Long, Accumulator> accumulators = byCity.get(previous.cityKey);
+                    Accumulator accumulator = accumulators == null ? null : accumulators.get(previous.getStart(bucket));
+                    if (accumulator != null) {
+                        accumulator.remove(id);
+                    }
+                });
+            }
+            if (rollup == null || weather.getEpochDay() == null || weather.getCityKey() == null) {
+                return null;
+            }
+
+            Contribution contribution = new Contribution(weather.getEpochDay(), weather.getCityKey(), rollup);
+            cityNames.putIfAbsent(contribution.cityKey, weather.getCity());
+            buckets.forEach((bucket, byCity) -> byCity
+                    .computeIfAbsent(contribution.cityKey, city -> new ConcurrentSkipListMap<>())
+                    .computeIfAbsent(contribution.getStart(bucket), start -> new Accumulator())
+                    .add(id, rollup));
+            return contribution;
+        });
+    }
+
+    /**
+     * Removes the buckets that end before {@code epochDay}. A bucket that spans it, such as a week
+     * across the first day of a month, keeps the records before it.
+     */
+    @Override
+    public void dropBefore(int epochDay) {
+        LocalDate day = LocalDate.ofEpochDay(epochDay);
+        buckets.forEach((bucket, byCity) -> {
+            long start = bucket.getStart(day).toEpochDay();
+            byCity.values().forEach(accumulators -> accumulators.headMap(start).clear());
+        });
+        contributionsById.values().removeIf(contribution -> contribution.epochDay < epochDay);
+    }
+
+    /**
+     * @param cityKeys the lower-cased cities to report, or {@code null} for all of them.
+     * @param from, to @optionals the inclusive range of days; buckets that overlap it are reported.
+     * @return the aggregates, by city then bucket start.
+     */
+    public List<TemperatureStats> find(Collection<String> cityKeys, StatsBucket bucket, LocalDate from, LocalDate to) {
+        Map<String, ConcurrentNavigableMap<Long, Accumulator>> byCity = buckets.get(bucket);
+        long first = from == null ? Long.MIN_VALUE : bucket.getStart(from).toEpochDay();
+        long last = to == null ? Long.MAX_VALUE : to.toEpochDay();
+
+        List<TemperatureStats> stats = new ArrayList<>();
+        for (String cityKey : cityKeys == null ? new TreeSet<>(byCity.keySet()) : new TreeSet<>(cityKeys)) {
+            ConcurrentNavigableMap<Long, Accumulator> accumulators = byCity.get(cityKey);
+            if (accumulators == null) {
+                continue;
+            }
+            accumulators.subMap(first, true, last, true).forEach((start, accumulator) -> {
+                TemperatureStats bucketStats = accumulator.toStats(cityNames.get(cityKey), LocalDate.ofEpochDay(start));
+                if (bucketStats != null) {
+                    stats.add(bucketStats);
+                }
+            });
+        }
+        return stats;
+    }
+
+    /**
+     * Where a record was folded in, and what it added.
+     */
+    private static final class Contribution {
+        final int epochDay;
+        final String cityKey;
+        final TemperatureRollup rollup;
+
+        Contribution(int epochDay, String cityKey, TemperatureRollup rollup) {
+            this.epochDay = epochDay;
+            this.cityKey = cityKey;
+            this.rollup = rollup;
+        }
+
+        long getStart(StatsBucket bucket) {
+            return bucket.getStart(LocalDate.ofEpochDay(epochDay)).toEpochDay();
+        }
+    }
+
+    /**
+     * The aggregate of a bucket, and the rollup of each of its records: removing a record recomputes the min or
+     * the max from the others only when it held them.
+     */
+    private static final class Accumulator {
+        private final Map<Integer, TemperatureRollup> rollups = new HashMap<>();
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private long count;
+
+        synchronized void add(int id, TemperatureRollup rollup) {
+            rollups.put(id, rollup);
+            min = Math.min(min, rollup.getMin());
+            max = Math.max(max, rollup.getMax());
+            sum += rollup.getMean() * rollup.getCount();
+            count += rollup.getCount();
+        }
+
+        synchronized void remove(int id) {
+            TemperatureRollup rollup = rollups.remove(id);
+            if (rollup == null) {
+                return;
+            }
+            sum -= rollup.getMean() * rollup.getCount();
+            count -= rollup.getCount();
+            if (rollup.getMin() <= min || rollup.getMax() >= max) {
+                min = Double.POSITIVE_INFINITY;
+                max = Double.NEGATIVE_INFINITY;
+                for (TemperatureRollup remaining : rollups.values()) {
+                    min = Math.min(min, remaining.getMin());
+                    max = Math.max(max, remaining.getMax());
+                }
+            }
+        }
+
+        /**
+         * @return the aggregate, or {@code null} if every record of the bucket was moved out of it.
+         */
+        synchronized TemperatureStats toStats(String city, LocalDate start) {
+            if (count == 0) {
+                return null;
+            }
+            return new TemperatureStats(city, start, min, max, sum / count, count);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.hackerrank.weather.index;
+
+import com.hackerrank.weather.model.Weather;
+
+/**
+ * An in-memory structure derived from the weather collection.
+ * <p>
+ * {@link WeatherIndexLoader} feeds every index with the whole store once the application is ready,
+ * then with every committed write and every drop of expired records. {@link #add} may see a record more than
+ * once and must be idempotent for it, and must be safe to call concurrently with reads and other writes.
+ * Records may have no date: structures keyed by day leave them out.
+ */
+public interface WeatherIndex {
+
+    void add(Weather weather);
+
+    /**
+     * Forgets the records of the days before {@code epochDay}, which were dropped from the store.
+     */
+    void dropBefore(int epochDay);
+
+    /**
+     * Called once every record present at startup has been {@link #add added}.
+     */
+    default void loaded() {
+    }
+}
@@ -0,0 +1,72 @@
+package com.hackerrank.weather.index;
+
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import com.hackerrank.weather.service.WeatherDroppedEvent;
+import com.hackerrank.weather.service.WeatherSavedEvent;
+import com.hackerrank.weather.store.WeatherStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps every {@link WeatherIndex} in step with the {@link WeatherStore}: one streamed scan once the application
+ * is ready, then every committed {@link WeatherSavedEvent} and every {@link WeatherDroppedEvent}.
+ */
+@Component
+public class WeatherIndexLoader {
+    private static final Logger log = LoggerFactory.getLogger(WeatherIndexLoader.class);
+
+    private final List<WeatherIndex> indexes;
+    private final WeatherStore weatherStore;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public WeatherIndexLoader(List<WeatherIndex> indexes, WeatherStore weatherStore,
+                              TransactionTemplate transactionTemplate) {
+        this.indexes = indexes;
+        this.weatherStore = weatherStore;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (indexes.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicLong count = new AtomicLong();
+        transactionTemplate.execute(status -> {
+            weatherStore.forEach(new WeatherQuery(null, null, null, WeatherSort.ID, null, null), weather -> {
+                indexes.forEach(index -> index.add(weather));
+                count.incrementAndGet();
+            });
+            return null;
+        });
+        indexes.forEach(WeatherIndex::loaded);
+        log.info("Loaded {} weather records into {} indexes in {} ms", count.get(), indexes.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWeatherSaved(WeatherSavedEvent event) {
+        for (Weather weather : event.getWeathers()) {
+            indexes.forEach(index -> index.add(weather));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWeatherDropped(WeatherDroppedEvent event) {
+        indexes.forEach(index -> index.dropBefore(event.getEpochDay()));
+    }
+}
@@ -0,0 +1,226 @@
+package com.hackerrank.weather.index;
+
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherCursor;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Ids of the weather collection by epoch day and by lower-cased city and epoch day, in concurrent skip lists,
+ * so that readers never lock and always see ids in order, answering the query shapes of {@code GET /weather}.
+ * Undated records are kept under the day {@link WeatherCursor#UNDATED}, before every other day, so that they come
+ * first by date ascending and last by date descending, as the database orders nulls, and are left out of date ranges.
+ * <p>
+ * Each id maps to a value of type {@code V} from which {@link #resolve} reads the record: the record itself
+ * for {@link WeatherReadModel}, or where it is stored.
+ */
+public abstract class WeatherQueryIndex<V> {
+    protected final ConcurrentNavigableMap<Integer, V> valuesById = new ConcurrentSkipListMap<>();
+    protected final ConcurrentNavigableMap<Integer, Set<Integer>> idsByDay = new ConcurrentSkipListMap<>();
+    protected final Map<String, ConcurrentNavigableMap<Integer, Set<Integer>>> idsByCityAndDay = new ConcurrentHashMap<>();
+
+    /**
+     * @return the record of the given value, or {@code null} if it is gone.
+     */
+    protected abstract Weather resolve(V value);
+
+    /**
+     * Indexes {@code weather} under its id, replacing any previous value of that id.
+     */
+    public void put(Weather weather, V value) {
+        Integer id = weather.getId();
+        int epochDay = getEpochDay(weather);
+
+        // The value goes in first, so that any id found in an index resolves.
+        V previous = valuesById.put(id, value);
+        if (previous != null) {
+            Weather replaced = resolve(previous);
+            if (replaced != null && !(getEpochDay(replaced) == epochDay
+                    && Objects.equals(replaced.getCityKey(), weather.getCityKey()))) {
+                removeKeys(replaced);
+            }
+        }
+
+        addId(idsByDay, epochDay, id);
+        if (weather.getCityKey() != null) {
+            addId(idsByCityAndDay.computeIfAbsent(weather.getCityKey(), key -> new ConcurrentSkipListMap<>()), epochDay, id);
+        }
+    }
+
+    /**
+     * Removes the record of the given id, if indexed.
+     */
+    public void remove(int id) {
+        V previous = valuesById.remove(id);
+        Weather removed = previous == null ? null : resolve(previous);
+        if (removed != null) {
+            removeKeys(removed);
+        }
+    }
+
+    /**
+     * Removes the records of the days before {@code epochDay}, found by a seek on the day skip lists. Undated
+     * records are kept.
+     *
+     * @return the number of records removed.
+     */
+    public int removeBefore(int epochDay) {
+        int removed = 0;
+        NavigableMap<Integer, Set<Integer>> days = getDaysBefore(idsByDay, epochDay);
+        for (Set<Integer> ids : days.values()) {
+            for (Integer id : ids) {
+                if (valuesById.remove(id) != null) {
+                    removed++;
+                }
+            }
+        }
+        days.clear();
+        idsByCityAndDay.values().forEach(byDay -> getDaysBefore(byDay, epochDay).clear());
+        return removed;
+    }
+
+    private static NavigableMap<Integer, Set<Integer>> getDaysBefore(NavigableMap<Integer, Set<Integer>> byDay, int epochDay) {
+        return byDay.headMap(epochDay, false).tailMap(WeatherCursor.UNDATED, false);
+    }
+
+    protected static void addId(ConcurrentNavigableMap<Integer, Set<Integer>> byDay, int epochDay, int id) {
+        byDay.computeIfAbsent(epochDay, key -> new ConcurrentSkipListSet<>()).add(id);
+    }
+
+    private void removeKeys(Weather weather) {
+        int epochDay = getEpochDay(weather);
+        Optional.ofNullable(idsByDay.get(epochDay)).ifPresent(ids -> ids.remove(weather.getId()));
+        Optional.ofNullable(weather.getCityKey()).map(idsByCityAndDay::get).map(byDay -> byDay.get(epochDay))
+                .ifPresent(ids -> ids.remove(weather.getId()));
+    }
+
+    /**
+     * @return the day the record is indexed under: its epoch day, or {@link WeatherCursor#UNDATED}.
+     */
+    private static int getEpochDay(Weather weather) {
+        return weather.getEpochDay() == null ? WeatherCursor.UNDATED : weather.getEpochDay();
+    }
+
+    public Optional<Weather> findById(int id) {
+        return Optional.ofNullable(valuesById.get(id)).map(this::resolve);
+    }
+
+    /**
+     * Answers a {@code GET /weather} query from the indexes: only the ids of the requested days and
+     * cities are visited, and records come out in the requested order.
+     */
+    public List<Weather> find(WeatherQuery query) {
+        List<Weather> result = new ArrayList<>();
+        stream(query).forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Same as {@link #find(WeatherQuery)}, but resolves the records lazily, except for city queries,
+     * which are sorted across cities.
+     */
+    public Stream<Weather> stream(WeatherQuery query) {
+        Stream<Weather> matches = query.getCityKeys().isPresent()
+                ? findByCities(query).stream()
+                : findByDate(query);
+
+        if (query.getAfter().isPresent()) {
+            WeatherCursor after = query.getAfter().get();
+            matches = matches.filter(weather -> isAfter(weather, after, query.getSort()));
+        }
+        if (query.getLimit().isPresent()) {
+            matches = matches.limit(query.getLimit().get());
+        }
+        return matches;
+    }
+
+    private Stream<Weather> findByDate(WeatherQuery query) {
+        Optional<WeatherCursor> after = query.getAfter();
+        boolean ranged = query.getFromDay().isPresent() || query.getToDay().isPresent();
+        boolean singleDay = query.getFromDay().isPresent() && query.getFromDay().equals(query.getToDay());
+        NavigableMap<Integer, Set<Integer>> days = getDays(idsByDay, query);
+
+        switch (query.getSort()) {
+            case DATE_ASC:
+                return toWeathers((after.isPresent() ? days.tailMap(after.get().getEpochDay(), true) : days)
+                        .values().stream().flatMap(Set::stream));
+            case DATE_DESC:
+                return toWeathers((after.isPresent() ? days.headMap(after.get().getEpochDay(), true) : days)
+                        .descendingMap().values().stream().flatMap(Set::stream));
+            default:
+                if (singleDay) {
+                    // Records of a single day are already in id order.
+                    return toWeathers(days.values().stream().flatMap(Set::stream));
+                }
+                if (ranged) {
+                    return toWeathers(days.values().stream().flatMap(Set::stream).sorted());
+                }
+                return (after.isPresent() ? valuesById.tailMap(after.get().getId(), false) : valuesById)
+                        .values().stream().map(this::resolve).filter(Objects::nonNull);
+        }
+    }
+
+    private List<Weather> findByCities(WeatherQuery query) {
+        List<Weather> matches = new ArrayList<>();
+        for (String cityKey : query.getCityKeys().get()) {
+            NavigableMap<Integer, Set<Integer>> cityIdsByDay = idsByCityAndDay.get(cityKey);
+            if (cityIdsByDay != null) {
+                toWeathers(getDays(cityIdsByDay, query).values().stream().flatMap(Set::stream)).forEach(matches::add);
+            }
+        }
+
+        matches.sort(getComparator(query.getSort()));
+        return matches;
+    }
+
+    /**
+     * @return the days of {@code byDay} within the range of the query, found by a seek on the skip list; the
+     * undated records only without a range.
+     */
+    private static NavigableMap<Integer, Set<Integer>> getDays(NavigableMap<Integer, Set<Integer>> byDay, WeatherQuery query) {
+        if (!query.getFromDay().isPresent() && !query.getToDay().isPresent()) {
+            return byDay;
+        }
+        int from = query.getFromDay().orElse(WeatherCursor.UNDATED + 1);
+        int to = query.getToDay().orElse(Integer.MAX_VALUE);
+        return from > to ? Collections.emptyNavigableMap() : byDay.subMap(from, true, to, true);
+    }
+
+    private Stream<Weather> toWeathers(Stream<Integer> ids) {
+        return ids.map(valuesById::get).filter(Objects::nonNull).map(this::resolve).filter(Objects::nonNull);
+    }
+
+    private static Comparator<Weather> getComparator(WeatherSort sort) {
+        Comparator<Weather> byId = Comparator.comparing(Weather::getId);
+        Comparator<Weather> byDate = Comparator.comparingInt(weather -> getEpochDay(weather));
+        switch (sort) {
+            case DATE_ASC:
+                return byDate.thenComparing(byId);
+            case DATE_DESC:
+                return byDate.reversed().thenComparing(byId);
+            default:
+                return byId;
+        }
+    }
+
+    private static boolean isAfter(Weather weather, WeatherCursor after, WeatherSort sort) {
+        if (sort != WeatherSort.ID) {
+            // Undated records, and cursors, are at the UNDATED day: first ascending, last descending.
+            int byDate = Integer.compare(getEpochDay(weather), after.getEpochDay());
+            if (sort == WeatherSort.DATE_DESC) {
+                byDate = -byDate;
+            }
+            if (byDate != 0) {
+                return byDate > 0;
+            }
+        }
+        return weather.getId() > after.getId();
+    }
+}
@@ -0,0 +1,47 @@
+package com.hackerrank.weather.index;
+
+import com.hackerrank.weather.model.Weather;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of the weather collection, indexed for the query shapes of {@code GET /weather}.
+ * <p>
+ * Records are held by id, and their ids by epoch day and by lower-cased city and epoch day, in the skip lists
+ * of {@link WeatherQueryIndex}. It is only queried once {@link WeatherIndexLoader} has loaded it from the store.
+ * <p>
+ * Enabled with {@code weather.read-model.enabled=true}. Writes that bypass {@code WeatherService}
+ * are not seen.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.read-model.enabled", havingValue = "true")
+public class WeatherReadModel extends WeatherQueryIndex<Weather> implements WeatherIndex {
+    private volatile boolean ready;
+
+    /**
+     * @return whether the initial load from the store is done, so that queries see every record.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void loaded() {
+        ready = true;
+    }
+
+    @Override
+    public void add(Weather weather) {
+        put(weather, weather);
+    }
+
+    @Override
+    public void dropBefore(int epochDay) {
+        removeBefore(epochDay);
+    }
+
+    @Override
+    protected Weather resolve(Weather weather) {
+        return weather;
+    }
+}
@@ -0,0 +1,46 @@
+package com.hackerrank.weather.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the number of SQL statements each request ran, counted by {@link StatementCounter}, in the
+ * {@code weather.http.statements} summary tagged with the method and URI pattern of the request.
+ * <p>
+ * Streamed responses run their queries on another thread once the handler has returned, and are not counted.
+ */
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public RequestMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        String method = request.getMethod();
+
+        summaries.computeIfAbsent(method + ' ' + uri, key -> DistributionSummary.builder("weather.http.statements")
+                .description("SQL statements run per request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry))
+                .record(StatementCounter.get());
+    }
+}
@@ -0,0 +1,29 @@
+package com.hackerrank.weather.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, so that {@link RequestMetricsInterceptor}
+ * can report them per request and N+1 selects show up. Registered through
+ * {@code hibernate.session_factory.statement_inspector}; the statement is left unchanged.
+ */
+public class StatementCounter implements StatementInspector {
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * @return the number of statements prepared on the current thread since the last {@link #reset()}.
+     */
+    public static int get() {
+        return COUNT.get()[0];
+    }
+}
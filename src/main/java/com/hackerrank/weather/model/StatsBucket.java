@@ -0,0 +1,28 @@
+package com.hackerrank.weather.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Period over which {@code GET /weather/stats} aggregates temperatures. Weeks start on Monday.
+ */
+public enum StatsBucket {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * @return the first day of the bucket holding {@code date}.
+     */
+    public LocalDate getStart(LocalDate date) {
+        switch (this) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.hackerrank.weather.model;
+
+/**
+ * Daily summary of the temperatures of a record by which {@code GET /weather/top} and {@code GET /weather/threshold}
+ * rank and filter records.
+ */
+public enum TemperatureMetric {
+    MAX,
+    MIN,
+    MEAN;
+
+    public double of(TemperatureRollup rollup) {
+        switch (this) {
+            case MAX:
+                return rollup.getMax();
+            case MIN:
+                return rollup.getMin();
+            default:
+                return rollup.getMean();
+        }
+    }
+}
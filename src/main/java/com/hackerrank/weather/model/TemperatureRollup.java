@@ -0,0 +1,80 @@
+package com.hackerrank.weather.model;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * Daily min/max/mean of the hourly temperatures of a {@link Weather} whose readings were downsampled.
+ */
+@Embeddable
+public class TemperatureRollup {
+    @Column(name = "rollup_min")
+    private Double min;
+    @Column(name = "rollup_max")
+    private Double max;
+    @Column(name = "rollup_mean")
+    private Double mean;
+    /** Number of readings summarized. */
+    @Column(name = "rollup_count")
+    private Integer count;
+
+    public TemperatureRollup(double min, double max, double mean, int count) {
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.count = count;
+    }
+
+    public TemperatureRollup() {
+    }
+
+    /**
+     * @return the summary of the given readings, or {@code null} if there are none.
+     */
+    public static TemperatureRollup of(double[] temperatures) {
+        if (temperatures == null || temperatures.length == 0) {
+            return null;
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (double temperature : temperatures) {
+            min = Math.min(min, temperature);
+            max = Math.max(max, temperature);
+            sum += temperature;
+        }
+        return new TemperatureRollup(min, max, sum / temperatures.length, temperatures.length);
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hackerrank.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Aggregate of the temperatures of one city over one {@link StatsBucket}, as returned by {@code GET /weather/stats}.
+ */
+public class TemperatureStats {
+    private final String city;
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private final LocalDate start;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final long count;
+
+    public TemperatureStats(String city, LocalDate start, double min, double max, double mean, long count) {
+        this.city = city;
+        this.start = start;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.count = count;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    /**
+     * @return the first day of the bucket.
+     */
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the number of readings aggregated.
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,33 @@
+package com.hackerrank.weather.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.nio.ByteBuffer;
+
+/**
+ * Packs the hourly temperatures of a {@link Weather} into a single binary column, 8 bytes per reading,
+ * so that they are read with their record instead of from a secondary table.
+ */
+@Converter
+public class TemperaturesConverter implements AttributeConverter<double[], byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(double[] temperatures) {
+        if (temperatures == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(temperatures.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(temperatures);
+        return buffer.array();
+    }
+
+    @Override
+    public double[] convertToEntityAttribute(byte[] packed) {
+        if (packed == null) {
+            return null;
+        }
+        double[] temperatures = new double[packed.length / Double.BYTES];
+        ByteBuffer.wrap(packed).asDoubleBuffer().get(temperatures);
+        return temperatures;
+    }
+}
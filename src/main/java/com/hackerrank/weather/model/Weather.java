@@ -1,47 +1,113 @@
 package com.hackerrank.weather.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_weather_epoch_day_id", columnList = "epoch_day, id"),
+        @Index(name = "idx_weather_city_key_epoch_day_id", columnList = "city_key, epoch_day, id")
+})
 public class Weather {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    /** Upper bound on the number of readings a record can hold, which sizes the packed column. */
+    public static final int MAX_TEMPERATURES = 1024;
+    /** Time zone in which {@link #date} is read and written as a {@code yyyy-MM-dd} day. */
+    public static final String TIME_ZONE = "America/Dominica";
+    private static final ZoneId ZONE_ID = ZoneId.of(TIME_ZONE);
+
+    /**
+     * Ids come from a pooled sequence, so that inserts can be batched, unlike with identity columns,
+     * and so that they can be handed out before the insert.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_id")
+    @GenericGenerator(name = "weather_id", strategy = "com.hackerrank.weather.model.WeatherIdGenerator", parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "weather_id_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
     private Integer id ;
-    @JsonFormat(pattern = "yyyy-MM-dd", timezone = "America/Dominica")
+    @JsonFormat(pattern = "yyyy-MM-dd", timezone = TIME_ZONE)
     private Date date;
+    /**
+     * {@link #date} as a number of days since 1970-01-01 in {@link #TIME_ZONE}, kept in its own indexed column
+     * so that date filters, ranges and orderings compare integers, with no time zone conversion.
+     */
+    @JsonIgnore
+    @Column(name = "epoch_day")
+    private Integer epochDay;
     private Float lat;
     private Float lon;
     private String city;
+    /** Lower-cased {@link #city}, kept in its own indexed column for case-insensitive lookups. */
+    @JsonIgnore
+    @Column(name = "city_key")
+    private String cityKey;
     private String state;
-    @ElementCollection
-    private List<Double> temperatures;
+    /** Hourly readings, stored packed in one column by {@link TemperaturesConverter}. */
+    @Convert(converter = TemperaturesConverter.class)
+    @Column(length = MAX_TEMPERATURES * Double.BYTES)
+    @Size(max = MAX_TEMPERATURES)
+    private double[] temperatures;
+    /**
+     * Summary of {@link #temperatures} once the record has been downsampled and its readings dropped;
+     * absent from the JSON representation of records that were not, and ignored in request bodies,
+     * as only the downsampling computes it.
+     */
+    @Embedded
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private TemperatureRollup rollup;
 
     public Weather(Integer id, Date date, Float lat, Float lon, String city, String state, List<Double> temperatures) {
         this.id = id;
-        this.date = date;
+        setDate(date);
         this.lat = lat;
         this.lon = lon;
-        this.city = city;
+        setCity(city);
         this.state = state;
-        this.temperatures = temperatures;
+        this.temperatures = toArray(temperatures);
     }
 
     public Weather(Date date, Float lat, Float lon, String city, String state, List<Double> temperatures) {
-        this.date = date;
+        setDate(date);
         this.lat = lat;
         this.lon = lon;
-        this.city = city;
+        setCity(city);
         this.state = state;
-        this.temperatures = temperatures;
+        this.temperatures = toArray(temperatures);
     }
 
     public Weather() {
     }
 
+    /**
+     * Normalizes a city name the same way it is stored in the {@code city_key} column.
+     *
+     * @param city the city name as sent by the client.
+     * @return the trimmed, lower-cased city, or {@code null} if {@code city} is {@code null}.
+     */
+    public static String toCityKey(String city) {
+        return city == null ? null : city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static double[] toArray(List<Double> temperatures) {
+        return temperatures == null ? null : temperatures.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
     public Integer getId() {
         return id;
     }
@@ -56,6 +122,28 @@ public class Weather {
 
     public void setDate(Date date) {
         this.date = date;
+        this.epochDay = date == null ? null : (int) toEpochDay(date);
+    }
+
+    /**
+     * @return the day of {@code date} in {@link #TIME_ZONE}, as formatted in the JSON representation,
+     * as a number of days since 1970-01-01.
+     */
+    public static long toEpochDay(Date date) {
+        return date.toInstant().atZone(ZONE_ID).toLocalDate().toEpochDay();
+    }
+
+    public Integer getEpochDay() {
+        return epochDay;
+    }
+
+    /**
+     * @return the day of {@link #date} in {@link #TIME_ZONE}, as formatted in the JSON representation,
+     * or {@code null} if the record is undated.
+     */
+    @JsonIgnore
+    public LocalDate getLocalDate() {
+        return epochDay == null ? null : LocalDate.ofEpochDay(epochDay);
     }
 
     public Float getLat() {
@@ -80,6 +168,11 @@ public class Weather {
 
     public void setCity(String city) {
         this.city = city;
+        this.cityKey = toCityKey(city);
+    }
+
+    public String getCityKey() {
+        return cityKey;
     }
 
     public String getState() {
@@ -90,11 +183,19 @@ public class Weather {
         this.state = state;
     }
 
-    public List<Double> getTemperatures() {
+    public double[] getTemperatures() {
         return temperatures;
     }
 
-    public void setTemperatures(List<Double> temperatures) {
+    public void setTemperatures(double[] temperatures) {
         this.temperatures = temperatures;
     }
+
+    public TemperatureRollup getRollup() {
+        return rollup;
+    }
+
+    public void setRollup(TemperatureRollup rollup) {
+        this.rollup = rollup;
+    }
 }
@@ -0,0 +1,40 @@
+package com.hackerrank.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one item of a {@code POST /weather/batch} payload: either the id of the created
+ * record or the reason it was rejected.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WeatherBatchResult {
+    private final long index;
+    private final Integer id;
+    private final String error;
+
+    private WeatherBatchResult(long index, Integer id, String error) {
+        this.index = index;
+        this.id = id;
+        this.error = error;
+    }
+
+    public static WeatherBatchResult created(long index, Integer id) {
+        return new WeatherBatchResult(index, id, null);
+    }
+
+    public static WeatherBatchResult failed(long index, String error) {
+        return new WeatherBatchResult(index, null, error);
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
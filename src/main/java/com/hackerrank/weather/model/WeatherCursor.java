@@ -0,0 +1,55 @@
+package com.hackerrank.weather.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position of the last record of a page: its {@code (epochDay, id)} pair.
+ * <p>
+ * It is handed to clients as an opaque token in the {@code after} query parameter, so the next
+ * page starts right after this record whatever has been inserted since, without an offset scan.
+ */
+public final class WeatherCursor {
+    /** The epoch day of the cursor of an undated record: undated records sort before every day, as nulls do. */
+    public static final int UNDATED = Integer.MIN_VALUE;
+
+    private final int epochDay;
+    private final int id;
+
+    public WeatherCursor(int epochDay, int id) {
+        this.epochDay = epochDay;
+        this.id = id;
+    }
+
+    public static WeatherCursor of(Weather weather) {
+        return new WeatherCursor(weather.getEpochDay() == null ? UNDATED : weather.getEpochDay(), weather.getId());
+    }
+
+    /**
+     * @param token a token previously returned by {@link #encode()}.
+     * @return the decoded cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static WeatherCursor decode(String token) {
+        String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = value.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor: " + token);
+        }
+        return new WeatherCursor(Integer.parseInt(value.substring(0, separator)),
+                Integer.parseInt(value.substring(separator + 1)));
+    }
+
+    public String encode() {
+        String value = epochDay + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
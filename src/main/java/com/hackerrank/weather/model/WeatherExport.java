@@ -0,0 +1,77 @@
+package com.hackerrank.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * An export of the weather collection to a gzip CSV file, as listed by {@code GET /weather/exports}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WeatherExport {
+    public enum Status {
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final String name;
+    private final Integer afterId;
+    private volatile Status status;
+    private volatile Integer lastId;
+    private volatile Long records;
+    private volatile Long bytes;
+
+    public WeatherExport(String name, Integer afterId, Status status) {
+        this.name = name;
+        this.afterId = afterId;
+        this.status = status;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the id after which records were exported, {@code null} for a full export.
+     */
+    public Integer getAfterId() {
+        return afterId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the id of the last record exported, from which the next incremental export starts.
+     */
+    public Integer getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(Integer lastId) {
+        this.lastId = lastId;
+    }
+
+    public Long getRecords() {
+        return records;
+    }
+
+    public void setRecords(Long records) {
+        this.records = records;
+    }
+
+    /**
+     * @return the size of the compressed file.
+     */
+    public Long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(Long bytes) {
+        this.bytes = bytes;
+    }
+}
@@ -0,0 +1,22 @@
+package com.hackerrank.weather.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.io.Serializable;
+
+/**
+ * Draws ids from the pooled {@code weather_id_seq} sequence, except for records that were given one already,
+ * drawn from the same sequence before they were queued for insertion. The API drops any id sent by clients, so
+ * that no id can be taken ahead of the sequence.
+ */
+public class WeatherIdGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        if (object instanceof Weather && ((Weather) object).getId() != null) {
+            return ((Weather) object).getId();
+        }
+        return super.generate(session, object);
+    }
+}
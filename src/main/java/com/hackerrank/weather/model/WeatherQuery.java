@@ -0,0 +1,70 @@
+package com.hackerrank.weather.model;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The filter, ordering and page of a {@code GET /weather} request.
+ * <p>
+ * Dates are held as epoch days, matched against {@link Weather#getEpochDay()}.
+ */
+public final class WeatherQuery {
+    private final Integer fromDay;
+    private final Integer toDay;
+    private final Set<String> cityKeys;
+    private final WeatherSort sort;
+    private final WeatherCursor after;
+    private final Integer limit;
+
+    /**
+     * @param from, to @optionals the inclusive range of days of the records to return.
+     * @param cities @optional the cities of the records to return, case insensitive.
+     */
+    public WeatherQuery(LocalDate from, LocalDate to, Collection<String> cities, WeatherSort sort,
+                        WeatherCursor after, Integer limit) {
+        this.fromDay = from == null ? null : (int) from.toEpochDay();
+        this.toDay = to == null ? null : (int) to.toEpochDay();
+        this.cityKeys = cities == null ? null : cities.stream()
+                .map(Weather::toCityKey)
+                .collect(Collectors.toSet());
+        this.sort = sort == null ? WeatherSort.ID : sort;
+        this.after = after;
+        this.limit = limit;
+    }
+
+    /**
+     * @return the first day to return, inclusive.
+     */
+    public Optional<Integer> getFromDay() {
+        return Optional.ofNullable(fromDay);
+    }
+
+    /**
+     * @return the last day to return, inclusive.
+     */
+    public Optional<Integer> getToDay() {
+        return Optional.ofNullable(toDay);
+    }
+
+    /**
+     * @return the requested cities, normalized with {@link Weather#toCityKey(String)}.
+     */
+    public Optional<Set<String>> getCityKeys() {
+        return Optional.ofNullable(cityKeys);
+    }
+
+    public WeatherSort getSort() {
+        return sort;
+    }
+
+    public Optional<WeatherCursor> getAfter() {
+        return Optional.ofNullable(after);
+    }
+
+    public Optional<Integer> getLimit() {
+        return Optional.ofNullable(limit);
+    }
+}
@@ -0,0 +1,29 @@
+package com.hackerrank.weather.model;
+
+/**
+ * The orderings supported by {@code GET /weather}. Records with the same date are always ordered by id.
+ */
+public enum WeatherSort {
+    ID,
+    DATE_ASC,
+    DATE_DESC;
+
+    /**
+     * @param sort the {@code sort} query parameter, {@code "date"} or {@code "-date"}.
+     * @return the matching ordering, {@link #ID} when the parameter is absent or unknown.
+     */
+    public static WeatherSort fromParameter(String sort) {
+        if (sort == null) {
+            return ID;
+        }
+
+        switch (sort) {
+            case "date":
+                return DATE_ASC;
+            case "-date":
+                return DATE_DESC;
+            default:
+                return ID;
+        }
+    }
+}
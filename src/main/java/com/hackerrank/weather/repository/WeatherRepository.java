@@ -3,10 +3,5 @@ package com.hackerrank.weather.repository;
 import com.hackerrank.weather.model.Weather;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Date;
-import java.util.List;
-
-public interface WeatherRepository extends JpaRepository<Weather, Integer> {
-
-    List<Weather> getAllByDate(Date date);
+public interface WeatherRepository extends JpaRepository<Weather, Integer>, WeatherRepositoryCustom {
 }
@@ -0,0 +1,29 @@
+package com.hackerrank.weather.repository;
+
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface WeatherRepositoryCustom {
+
+    /**
+     * Runs the filter, ordering and keyset page of the given query as a single statement.
+     */
+    List<Weather> findAll(WeatherQuery query);
+
+    /**
+     * Same as {@link #findAll(WeatherQuery)}, but reads the rows lazily through a JDBC cursor.
+     * Must be consumed and closed inside a transaction.
+     */
+    Stream<Weather> streamAll(WeatherQuery query);
+
+    /**
+     * Deletes at most {@code limit} of the records of the days before {@code epochDay}, found through the
+     * {@code epoch_day} index. Must be called inside a transaction.
+     *
+     * @return the number of records deleted.
+     */
+    int deleteBefore(int epochDay, int limit);
+}
@@ -0,0 +1,113 @@
+package com.hackerrank.weather.repository;
+
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherCursor;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class WeatherRepositoryImpl implements WeatherRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${weather.stream.fetch-size:500}")
+    private int fetchSize;
+
+    @Override
+    public List<Weather> findAll(WeatherQuery query) {
+        TypedQuery<Weather> typedQuery = createQuery(query);
+        query.getLimit().ifPresent(typedQuery::setMaxResults);
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public Stream<Weather> streamAll(WeatherQuery query) {
+        TypedQuery<Weather> typedQuery = createQuery(query)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true);
+        query.getLimit().ifPresent(typedQuery::setMaxResults);
+        return typedQuery.getResultStream();
+    }
+
+    @Override
+    public int deleteBefore(int epochDay, int limit) {
+        List<Integer> ids = entityManager.createQuery("select w.id from Weather w where w.epochDay < :epochDay", Integer.class)
+                .setParameter("epochDay", epochDay)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createQuery("delete from Weather w where w.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    private TypedQuery<Weather> createQuery(WeatherQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Weather> criteria = cb.createQuery(Weather.class);
+        Root<Weather> weather = criteria.from(Weather.class);
+        Path<Integer> id = weather.get("id");
+        Path<Integer> epochDay = weather.get("epochDay");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.getFromDay().isPresent() && query.getFromDay().equals(query.getToDay())) {
+            predicates.add(cb.equal(epochDay, query.getFromDay().get()));
+        } else {
+            query.getFromDay().ifPresent(from -> predicates.add(cb.greaterThanOrEqualTo(epochDay, from)));
+            query.getToDay().ifPresent(to -> predicates.add(cb.lessThanOrEqualTo(epochDay, to)));
+        }
+        query.getCityKeys().ifPresent(cityKeys -> predicates.add(weather.get("cityKey").in(cityKeys)));
+        query.getAfter().ifPresent(after -> predicates.add(getKeysetPredicate(cb, query.getSort(), after, epochDay, id)));
+
+        criteria.select(weather)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(getOrders(cb, query.getSort(), epochDay, id));
+
+        return entityManager.createQuery(criteria);
+    }
+
+    private Predicate getKeysetPredicate(CriteriaBuilder cb, WeatherSort sort, WeatherCursor after,
+                                         Path<Integer> epochDay, Path<Integer> id) {
+        Predicate nextId = cb.greaterThan(id, after.getId());
+        boolean undated = after.getEpochDay() == WeatherCursor.UNDATED;
+        // Undated records come first by date ascending, last by date descending, as H2 orders nulls.
+        switch (sort) {
+            case DATE_ASC:
+                if (undated) {
+                    return cb.or(cb.isNotNull(epochDay), nextId);
+                }
+                return cb.or(cb.greaterThan(epochDay, after.getEpochDay()),
+                        cb.and(cb.equal(epochDay, after.getEpochDay()), nextId));
+            case DATE_DESC:
+                if (undated) {
+                    return cb.and(cb.isNull(epochDay), nextId);
+                }
+                return cb.or(cb.lessThan(epochDay, after.getEpochDay()),
+                        cb.and(cb.equal(epochDay, after.getEpochDay()), nextId), cb.isNull(epochDay));
+            default:
+                return nextId;
+        }
+    }
+
+    private List<Order> getOrders(CriteriaBuilder cb, WeatherSort sort, Path<Integer> epochDay, Path<Integer> id) {
+        List<Order> orders = new ArrayList<>();
+        if (sort == WeatherSort.DATE_ASC) {
+            orders.add(cb.asc(epochDay));
+        } else if (sort == WeatherSort.DATE_DESC) {
+            orders.add(cb.desc(epochDay));
+        }
+        orders.add(cb.asc(id));
+        return orders;
+    }
+}
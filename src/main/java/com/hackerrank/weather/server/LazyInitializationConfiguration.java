@@ -0,0 +1,25 @@
+package com.hackerrank.weather.server;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The beans created at startup even when {@code spring.main.lazy-initialization} is true, as in the {@code fast}
+ * profile: those whose creation starts something that must not wait for a first request.
+ * <p>
+ * The other beans of the service are safe to create on first use. The indexes are loaded, and the retention and
+ * rollup jobs started, by listeners of the ready event, which create their beans then; the {@code log} store is
+ * opened by the first of them. Meter binders, however, only start counting once bound, and would miss the garbage
+ * collections and the class loading of the startup itself.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.main.lazy-initialization", havingValue = "true")
+public class LazyInitializationConfiguration {
+    @Bean
+    public static LazyInitializationExcludeFilter meterBindersExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(MeterBinder.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.hackerrank.weather.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Measures a start of the service, then stops it: once the application is ready, sends it a first
+ * {@code GET /weather}, and logs the time from the start of the JVM to its response, with the heap still used
+ * after a full collection, as {@code first-request-ms=<ms> heap-used-bytes=<bytes>}.
+ * <p>
+ * Enabled with {@code weather.startup.check=true}, by the startup test and by the training run of the class
+ * data sharing archive, whose classes are then those a start needs to answer requests.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.startup.check", havingValue = "true")
+public class StartupCheck {
+    private static final Logger log = LoggerFactory.getLogger(StartupCheck.class);
+
+    private final ConfigurableApplicationContext context;
+    private final Environment environment;
+
+    @Autowired
+    public StartupCheck(ConfigurableApplicationContext context, Environment environment) {
+        this.context = context;
+        this.environment = environment;
+    }
+
+    /**
+     * Runs after the other listeners of the event, such as the loading of the indexes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void check() throws IOException {
+        int status = get("/weather");
+        long firstRequestMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.gc();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        log.info("Startup check: GET /weather returned {}, first-request-ms={} heap-used-bytes={}", status,
+                firstRequestMillis, heap.getUsed());
+        System.exit(SpringApplication.exit(context, () -> status == HttpURLConnection.HTTP_OK ? 0 : 1));
+    }
+
+    private int get(String path) throws IOException {
+        String port = environment.getRequiredProperty("local.server.port");
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        try (InputStream body = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            while (body.read(buffer) >= 0) {
+                // Reads the whole response.
+            }
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.hackerrank.weather.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs requests on virtual threads, one per task, instead of the pool of {@code server.tomcat.max-threads}
+ * platform threads: Tomcat hands each request to a new virtual thread, as does Spring MVC for streamed responses.
+ * <p>
+ * A request blocked on the database then no longer holds a platform thread, so requests that do not need it,
+ * such as cached responses, are served while the connection pool is exhausted. The pool,
+ * {@code spring.datasource.hikari.maximum-pool-size}, remains the bound on concurrent database work: the
+ * other requests wait for a connection, up to {@code spring.datasource.hikari.connection-timeout}.
+ * <p>
+ * Enabled with {@code weather.server.threads=virtual}, which needs Java 21 or later at runtime.
+ */
+@Configuration
+@ConditionalOnProperty(name = "weather.server.threads", havingValue = "virtual")
+public class VirtualThreadsConfiguration implements WebMvcConfigurer {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsConfiguration.class);
+
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            protocolHandler.setExecutor(executor);
+            log.info("Tomcat requests run on virtual threads");
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Calls {@code Executors.newVirtualThreadPerTaskExecutor()} reflectively, since the service is built for Java 8.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("weather.server.threads=virtual needs Java 21 or later, not "
+                    + System.getProperty("java.version"), e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+}
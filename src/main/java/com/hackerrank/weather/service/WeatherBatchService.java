@@ -0,0 +1,126 @@
+package com.hackerrank.weather.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherBatchResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Service
+public class WeatherBatchService {
+    private final WeatherService weatherService;
+    private final ObjectReader weatherReader;
+    private final Validator validator;
+
+    @Value("${weather.batch.size:500}")
+    private int batchSize;
+
+    @Autowired
+    public WeatherBatchService(WeatherService weatherService, ObjectMapper objectMapper, Validator validator) {
+        this.weatherService = weatherService;
+        this.weatherReader = objectMapper.readerFor(Weather.class);
+        this.validator = validator;
+    }
+
+    /**
+     * Reads weathers one at a time from a JSON array or from newline-delimited JSON, and saves them in
+     * transactions of {@code weather.batch.size} records, each written as JDBC batches.
+     * <p>
+     * Only one batch is held in memory at a time. Items that cannot be bound or validated are reported
+     * and skipped; the records of a batch that fails to save are saved again one by one, and those that
+     * still fail are reported with their error. A syntax error ends the payload.
+     *
+     * @param payload the request body.
+     * @param results receives the outcome of each item, in payload order, as soon as its batch is done.
+     */
+    public void saveAll(InputStream payload, Consumer<WeatherBatchResult> results) throws IOException {
+        List<Weather> batch = new ArrayList<>(batchSize);
+        long index = 0;
+        long batchStart = 0;
+
+        try (MappingIterator<Weather> weathers = weatherReader.readValues(payload)) {
+            while (true) {
+                Weather weather;
+                try {
+                    if (!weathers.hasNextValue()) {
+                        break;
+                    }
+                    weather = weathers.nextValue();
+                } catch (JsonMappingException e) {
+                    flush(batch, batchStart, results);
+                    results.accept(WeatherBatchResult.failed(index, e.getOriginalMessage()));
+                    batchStart = ++index;
+                    continue;
+                } catch (JsonParseException e) {
+                    flush(batch, batchStart, results);
+                    results.accept(WeatherBatchResult.failed(index, e.getOriginalMessage()));
+                    return;
+                }
+
+                Set<ConstraintViolation<Weather>> violations = validator.validate(weather);
+                if (!violations.isEmpty()) {
+                    flush(batch, batchStart, results);
+                    results.accept(WeatherBatchResult.failed(index, violations.stream()
+                            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                            .collect(Collectors.joining(", "))));
+                    batchStart = ++index;
+                    continue;
+                }
+
+                // As for POST /weather, ids only come from the sequence.
+                weather.setId(null);
+                batch.add(weather);
+                index++;
+                if (batch.size() == batchSize) {
+                    flush(batch, batchStart, results);
+                    batchStart = index;
+                }
+            }
+        }
+
+        flush(batch, batchStart, results);
+    }
+
+    private void flush(List<Weather> batch, long batchStart, Consumer<WeatherBatchResult> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Weather> created = weatherService.saveAll(batch);
+            for (int i = 0; i < created.size(); i++) {
+                results.accept(WeatherBatchResult.created(batchStart + i, created.get(i).getId()));
+            }
+        } catch (DataAccessException e) {
+            // The batch was rolled back: its records are saved again one at a time, so that only those that
+            // fail are reported, each with its own error.
+            for (int i = 0; i < batch.size(); i++) {
+                Weather weather = batch.get(i);
+                weather.setId(null);
+                try {
+                    results.accept(WeatherBatchResult.created(batchStart + i, weatherService.save(weather).getId()));
+                } catch (DataAccessException itemException) {
+                    results.accept(WeatherBatchResult.failed(batchStart + i,
+                            itemException.getMostSpecificCause().getMessage()));
+                }
+            }
+        }
+        batch.clear();
+    }
+}
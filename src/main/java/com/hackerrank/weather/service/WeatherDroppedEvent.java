@@ -0,0 +1,17 @@
+package com.hackerrank.weather.service;
+
+/**
+ * Published by {@link WeatherService} when the records of the days before {@link #getEpochDay()} have been
+ * dropped from the store, so that the in-memory indexes drop them too.
+ */
+public class WeatherDroppedEvent {
+    private final int epochDay;
+
+    public WeatherDroppedEvent(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+}
@@ -0,0 +1,109 @@
+package com.hackerrank.weather.service;
+
+import com.hackerrank.weather.model.Weather;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops the records of expired months: those before the {@code weather.retention.months} months that precede
+ * the current one, in {@link Weather#TIME_ZONE}. Records are partitioned by the month of their date, and a month
+ * is dropped whole, by {@link WeatherService#dropBefore}.
+ * <p>
+ * Runs once the application is ready, before the indexes are loaded, then every
+ * {@code weather.retention.interval-minutes}. Dropped records are counted in {@code weather.retention.dropped}.
+ * Enabled with {@code weather.retention.enabled=true}.
+ */
+@Service
+@ConditionalOnProperty(name = "weather.retention.enabled", havingValue = "true")
+public class WeatherRetention {
+    private static final Logger log = LoggerFactory.getLogger(WeatherRetention.class);
+    private static final ZoneId ZONE_ID = ZoneId.of(Weather.TIME_ZONE);
+
+    private final WeatherService weatherService;
+    private final int months;
+    private final long intervalMinutes;
+    private final Counter droppedCounter;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public WeatherRetention(WeatherService weatherService, MeterRegistry meterRegistry,
+                            @Value("${weather.retention.months:12}") int months,
+                            @Value("${weather.retention.interval-minutes:60}") long intervalMinutes) {
+        if (months < 0) {
+            throw new IllegalArgumentException("weather.retention.months must not be negative");
+        }
+        this.weatherService = weatherService;
+        this.months = months;
+        this.intervalMinutes = intervalMinutes;
+        this.droppedCounter = Counter.builder("weather.retention.dropped")
+                .description("Records dropped because their month expired")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs before {@code WeatherIndexLoader}, so that the indexes never load expired records.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() {
+        dropExpired();
+        executor.scheduleWithFixedDelay(this::dropExpiredQuietly, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return the first day kept.
+     */
+    public LocalDate getHorizon() {
+        return YearMonth.now(ZONE_ID).minusMonths(months).atDay(1);
+    }
+
+    /**
+     * @return the number of records dropped.
+     */
+    public int dropExpired() {
+        long start = System.nanoTime();
+        LocalDate horizon = getHorizon();
+        int dropped = weatherService.dropBefore(horizon);
+        droppedCounter.increment(dropped);
+        if (dropped > 0) {
+            log.info("Dropped {} weather records before {} in {} ms", dropped, horizon,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return dropped;
+    }
+
+    private void dropExpiredQuietly() {
+        try {
+            dropExpired();
+        } catch (RuntimeException e) {
+            log.error("Could not drop expired weather records", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,193 @@
+package com.hackerrank.weather.service;
+
+import com.hackerrank.weather.model.TemperatureRollup;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherCursor;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import com.hackerrank.weather.store.WeatherStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Downsamples the records older than {@code weather.rollup.after-days} days, in {@link Weather#TIME_ZONE}: their
+ * hourly temperatures are replaced by their daily {@link TemperatureRollup}, and the records saved again, in
+ * batches of {@code weather.batch.size}, through {@link WeatherService#saveAll}. The stores then free the readings:
+ * the {@code jpa} store on update, the {@code log} store once its segments are compacted.
+ * <p>
+ * Runs in the background once the application is ready, then every {@code weather.rollup.interval-minutes}, each
+ * run only reading the days that aged since the last one; records saved later with a date before those days are
+ * downsampled as they are saved. Downsampled records are counted in {@code weather.rollup.records}.
+ * Enabled with {@code weather.rollup.enabled=true}.
+ */
+@Service
+@ConditionalOnProperty(name = "weather.rollup.enabled", havingValue = "true")
+public class WeatherRollup {
+    private static final Logger log = LoggerFactory.getLogger(WeatherRollup.class);
+    private static final ZoneId ZONE_ID = ZoneId.of(Weather.TIME_ZONE);
+
+    private final WeatherService weatherService;
+    private final WeatherStore weatherStore;
+    private final int afterDays;
+    private final long intervalMinutes;
+    private final int batchSize;
+    private final Counter recordsCounter;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-rollup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The day before which every record has been downsampled, once a run went through. */
+    private volatile LocalDate rolledUpBefore;
+
+    @Autowired
+    public WeatherRollup(WeatherService weatherService, WeatherStore weatherStore, MeterRegistry meterRegistry,
+                         @Value("${weather.rollup.after-days:365}") int afterDays,
+                         @Value("${weather.rollup.interval-minutes:60}") long intervalMinutes,
+                         @Value("${weather.batch.size:500}") int batchSize) {
+        if (afterDays < 0) {
+            throw new IllegalArgumentException("weather.rollup.after-days must not be negative");
+        }
+        this.weatherService = weatherService;
+        this.weatherStore = weatherStore;
+        this.afterDays = afterDays;
+        this.intervalMinutes = intervalMinutes;
+        this.batchSize = batchSize;
+        this.recordsCounter = Counter.builder("weather.rollup.records")
+                .description("Records whose hourly temperatures were downsampled to a daily rollup")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::rollUpQuietly, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return the first day whose records keep their hourly temperatures.
+     */
+    public LocalDate getCutoff() {
+        return LocalDate.now(ZONE_ID).minusDays(afterDays);
+    }
+
+    /**
+     * Downsamples the records of the days before {@code day}, after those already downsampled.
+     *
+     * @return the number of records downsampled.
+     */
+    public int rollUpBefore(LocalDate day) {
+        LocalDate from = rolledUpBefore;
+        if (from != null && !from.isBefore(day)) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        int count = 0;
+        WeatherCursor cursor = null;
+        List<Weather> page;
+        do {
+            page = weatherStore.findAll(new WeatherQuery(from, day.minusDays(1), null, WeatherSort.ID, cursor, batchSize));
+            count += saveRollups(page);
+            if (!page.isEmpty()) {
+                cursor = WeatherCursor.of(page.get(page.size() - 1));
+            }
+        } while (page.size() == batchSize);
+
+        rolledUpBefore = day;
+        if (count > 0) {
+            log.info("Downsampled {} weather records before {} in {} ms", count, day,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return count;
+    }
+
+    /**
+     * Downsamples, in the background, the saved records dated before the days already downsampled.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWeatherSaved(WeatherSavedEvent event) {
+        LocalDate before = rolledUpBefore;
+        if (before == null) {
+            return;
+        }
+        long beforeDay = before.toEpochDay();
+        List<Weather> late = event.getWeathers().stream()
+                .filter(weather -> weather.getTemperatures() != null && weather.getEpochDay() != null
+                        && weather.getEpochDay() < beforeDay)
+                .collect(Collectors.toList());
+        if (!late.isEmpty()) {
+            executor.execute(() -> {
+                try {
+                    saveRollups(late);
+                } catch (RuntimeException e) {
+                    log.error("Could not downsample weather records", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Downsamples the records of {@code weathers} from their current version, read again under the write, so that
+     * a record saved since {@code weathers} were read is downsampled with its new readings rather than overwritten.
+     *
+     * @return the number of records saved with their rollup, those that still have temperatures.
+     */
+    private int saveRollups(List<Weather> weathers) {
+        if (weathers.isEmpty()) {
+            return 0;
+        }
+        List<Integer> ids = weathers.stream().map(Weather::getId).collect(Collectors.toList());
+        int count = weatherService.updateAll(ids, WeatherRollup::toRollup).size();
+        recordsCounter.increment(count);
+        return count;
+    }
+
+    /**
+     * A copy of the record with the rollup instead of the readings, so that the record read, which may be shared
+     * with the store, is left untouched.
+     *
+     * @return the copy, or {@code null} if the record has no readings to downsample.
+     */
+    private static Weather toRollup(Weather weather) {
+        TemperatureRollup rollup = TemperatureRollup.of(weather.getTemperatures());
+        if (rollup == null) {
+            return null;
+        }
+        Weather copy = new Weather(weather.getId(), weather.getDate(), weather.getLat(), weather.getLon(),
+                weather.getCity(), weather.getState(), null);
+        copy.setRollup(rollup);
+        return copy;
+    }
+
+    private void rollUpQuietly() {
+        try {
+            rollUpBefore(getCutoff());
+        } catch (RuntimeException e) {
+            log.error("Could not downsample weather records", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.hackerrank.weather.service;
+
+import com.hackerrank.weather.model.Weather;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published by {@link WeatherService} for every write, so that the in-memory indexes built on top of
+ * the repository can follow it. Listeners should use {@code @TransactionalEventListener(fallbackExecution = true)},
+ * so they only see committed records.
+ */
+public class WeatherSavedEvent {
+    private final List<Weather> weathers;
+
+    public WeatherSavedEvent(List<Weather> weathers) {
+        this.weathers = Collections.unmodifiableList(weathers);
+    }
+
+    public List<Weather> getWeathers() {
+        return weathers;
+    }
+}
@@ -1,55 +1,260 @@
 package com.hackerrank.weather.service;
 
+import com.hackerrank.weather.index.SpatialIndex;
+import com.hackerrank.weather.index.TemperatureRankIndex;
+import com.hackerrank.weather.index.TemperatureStatsIndex;
+import com.hackerrank.weather.index.WeatherReadModel;
+import com.hackerrank.weather.model.StatsBucket;
+import com.hackerrank.weather.model.TemperatureMetric;
+import com.hackerrank.weather.model.TemperatureStats;
 import com.hackerrank.weather.model.Weather;
-import com.hackerrank.weather.repository.WeatherRepository;
+import com.hackerrank.weather.model.WeatherCursor;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.store.WeatherStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
 
 @Service
 public class WeatherService {
-    private final WeatherRepository weatherRepository;
+    private final WeatherStore weatherStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<WeatherReadModel> readModel;
+    private final TemperatureStatsIndex statsIndex;
+    private final SpatialIndex spatialIndex;
+    private final TemperatureRankIndex rankIndex;
+
+    private final Timer storeQueryTimer;
+    private final Timer readModelQueryTimer;
+    private final DistributionSummary storeResultSizes;
+    private final DistributionSummary readModelResultSizes;
 
     @Autowired
-    public WeatherService(WeatherRepository weatherRepository) {
-        this.weatherRepository = weatherRepository;
+    public WeatherService(WeatherStore weatherStore, ApplicationEventPublisher eventPublisher,
+                          Optional<WeatherReadModel> readModel, TemperatureStatsIndex statsIndex,
+                          SpatialIndex spatialIndex, TemperatureRankIndex rankIndex, MeterRegistry meterRegistry) {
+        this.weatherStore = weatherStore;
+        this.eventPublisher = eventPublisher;
+        this.readModel = readModel;
+        this.statsIndex = statsIndex;
+        this.spatialIndex = spatialIndex;
+        this.rankIndex = rankIndex;
+        this.storeQueryTimer = meterRegistry.timer("weather.query", "source", weatherStore.getName());
+        this.readModelQueryTimer = meterRegistry.timer("weather.query", "source", "read-model");
+        this.storeResultSizes = meterRegistry.summary("weather.query.results", "source", weatherStore.getName());
+        this.readModelResultSizes = meterRegistry.summary("weather.query.results", "source", "read-model");
+    }
+
+    public Weather save(Weather weather){
+        Weather savedWeather = weatherStore.save(weather);
+        eventPublisher.publishEvent(new WeatherSavedEvent(Collections.singletonList(savedWeather)));
+        return savedWeather;
+    }
+
+    /**
+     * Saves the given weathers in one transaction, as one write to the {@link WeatherStore}.
+     *
+     * @return the saved weathers, with their ids, in the same order.
+     */
+    @Transactional
+    public List<Weather> saveAll(List<Weather> weathers){
+        List<Weather> savedWeathers = weatherStore.saveAll(weathers);
+        eventPublisher.publishEvent(new WeatherSavedEvent(savedWeathers));
+        return savedWeathers;
+    }
+
+    /**
+     * Saves in one transaction what {@code update} returns for the current version of each record of the given ids,
+     * read under the write by {@link WeatherStore#updateAll}.
+     *
+     * @param update returns the new version of a record, or {@code null} to leave it as it is.
+     * @return the saved weathers.
+     */
+    @Transactional
+    public List<Weather> updateAll(Collection<Integer> ids, UnaryOperator<Weather> update){
+        List<Weather> updatedWeathers = weatherStore.updateAll(ids, update);
+        if (!updatedWeathers.isEmpty()) {
+            eventPublisher.publishEvent(new WeatherSavedEvent(updatedWeathers));
+        }
+        return updatedWeathers;
+    }
+
+    /**
+     * Reserves the id of a record inserted later with {@link #insertAll}.
+     */
+    public int nextId(){
+        return weatherStore.nextId();
+    }
+
+    /**
+     * Inserts in one transaction new weathers whose ids were reserved with {@link #nextId()}.
+     */
+    @Transactional
+    public List<Weather> insertAll(List<Weather> weathers){
+        List<Weather> insertedWeathers = weatherStore.insertAll(weathers);
+        eventPublisher.publishEvent(new WeatherSavedEvent(insertedWeathers));
+        return insertedWeathers;
+    }
+
+    /**
+     * Drops from the {@link WeatherStore} every record of a day before {@code day}, then from the indexes.
+     *
+     * @return the number of records dropped from the store.
+     */
+    public int dropBefore(LocalDate day){
+        int epochDay = (int) day.toEpochDay();
+        int dropped = weatherStore.dropBefore(epochDay);
+        eventPublisher.publishEvent(new WeatherDroppedEvent(epochDay));
+        return dropped;
+    }
+
+    public Optional<Weather> findById(int id){
+        Optional<WeatherReadModel> model = getReadyReadModel();
+        return model.isPresent() ? model.get().findById(id) : weatherStore.findById(id);
+    }
+
+    /**
+     * Runs the date/city filter, the ordering and the keyset page as a single {@link WeatherStore} query.
+     * When the {@link WeatherReadModel} is enabled and loaded, the query is answered from its indexes instead.
+     * <p>
+     * The time spent and the number of records returned are recorded in the {@code weather.query} timer and
+     * {@code weather.query.results} summary, tagged with the source that answered.
+     */
+    public List<Weather> getFilteredWeatherList(WeatherQuery query){
+        Optional<WeatherReadModel> model = getReadyReadModel();
+        List<Weather> weathers;
+        if (model.isPresent()) {
+            weathers = readModelQueryTimer.record(() -> model.get().find(query));
+            readModelResultSizes.record(weathers.size());
+        } else {
+            weathers = storeQueryTimer.record(() -> weatherStore.findAll(query));
+            storeResultSizes.record(weathers.size());
+        }
+        return weathers;
     }
 
-    public List<Weather> getFilteredWeatherList( Optional<Date> date, Optional<List<String>> cities,
-                                                 Optional<String> sort){
+    /**
+     * Hands the matching records to {@code consumer} one by one as they are read from the {@link WeatherStore}.
+     */
+    @Transactional(readOnly = true)
+    public void streamFilteredWeatherList(WeatherQuery query, Consumer<Weather> consumer){
+        Optional<WeatherReadModel> model = getReadyReadModel();
+        if (model.isPresent()) {
+            model.get().find(query).forEach(consumer);
+            return;
+        }
 
-        List<Weather> WeatherList = date.isPresent() ? weatherRepository.getAllByDate(date.get()) : weatherRepository.findAll();
+        weatherStore.forEach(query, consumer);
+    }
 
-         if(cities.isPresent()) {
-            WeatherList = getFilterWeatherListByCity(cities.get(), WeatherList);
+    /**
+     * Reads the temperature aggregates maintained by {@link TemperatureStatsIndex}, without touching the records.
+     *
+     * @param cityKeys the lower-cased cities to report, or {@code null} for all of them.
+     * @throws IllegalStateException if the aggregates are still being loaded.
+     */
+    public List<TemperatureStats> getTemperatureStats(Collection<String> cityKeys, StatsBucket bucket,
+                                                      LocalDate from, LocalDate to){
+        if (!statsIndex.isReady()) {
+            throw new IllegalStateException("Temperature statistics are still being loaded");
         }
+        return statsIndex.find(cityKeys, bucket, from, to);
+    }
 
-        if(!sort.isPresent()){
-            //sorting List by id.
-            WeatherList.sort(Comparator.comparing(Weather::getId));
-        }else{
-            sortedWeatherListByDate(sort.get(), WeatherList);
+    /**
+     * @param date @optional only records of this day are returned when given.
+     * @param limit the number of records above which the farthest ones are left out, before any is read.
+     * @return the records within {@code radiusKm} of the point, found through the {@link SpatialIndex},
+     * nearest first then by id.
+     * @throws IllegalStateException if the spatial index is still being loaded.
+     */
+    public List<Weather> getNearbyWeatherList(double lat, double lon, double radiusKm, LocalDate date, int limit){
+        if (!spatialIndex.isReady()) {
+            throw new IllegalStateException("Spatial index is still being loaded");
         }
+        List<SpatialIndex.Neighbor> neighbors = spatialIndex.findWithin(lat, lon, radiusKm, date);
+        return findAllById(neighbors.subList(0, Math.min(limit, neighbors.size())), SpatialIndex.Neighbor::getId);
+    }
 
-        return WeatherList;
+    /**
+     * @param date @optional only records of this day are returned when given.
+     * @return the {@code k} records nearest to the point, found through the {@link SpatialIndex},
+     * nearest first then by id.
+     * @throws IllegalStateException if the spatial index is still being loaded.
+     */
+    public List<Weather> getNearestWeatherList(double lat, double lon, int k, LocalDate date){
+        if (!spatialIndex.isReady()) {
+            throw new IllegalStateException("Spatial index is still being loaded");
+        }
+        return findAllById(spatialIndex.findNearest(lat, lon, k, date), SpatialIndex.Neighbor::getId);
+    }
+
+    /**
+     * @param from, to @optionals the inclusive range of days.
+     * @param highest whether to return the highest values of {@code metric}, or the lowest.
+     * @return the record with the best value of {@code metric} of each of the {@code k} best cities, found through
+     * the {@link TemperatureRankIndex}, best first.
+     * @throws IllegalStateException if the rank index is still being loaded.
+     */
+    public List<Weather> getTopWeatherList(TemperatureMetric metric, LocalDate from, LocalDate to, int k,
+                                           boolean highest){
+        if (!rankIndex.isReady()) {
+            throw new IllegalStateException("Temperature ranks are still being loaded");
+        }
+        return findAllById(rankIndex.findTop(metric, from, to, k, highest), TemperatureRankIndex.Ranked::getId);
+    }
+
+    /**
+     * @param from, to @optionals the inclusive range of days.
+     * @param above, below @optionals the exclusive bounds of {@code metric}.
+     * @param after @optional the keyset position of the last record of the previous page.
+     * @param limit the largest number of records returned.
+     * @return the records whose {@code metric} is within the bounds, found through the {@link TemperatureRankIndex},
+     * by date then id.
+     * @throws IllegalStateException if the rank index is still being loaded.
+     */
+    public List<Weather> getThresholdWeatherList(TemperatureMetric metric, LocalDate from, LocalDate to,
+                                                 Double above, Double below, WeatherCursor after, int limit){
+        if (!rankIndex.isReady()) {
+            throw new IllegalStateException("Temperature ranks are still being loaded");
+        }
+        return findAllById(rankIndex.findWithin(metric, from, to, above, below, after, limit),
+                TemperatureRankIndex.Ranked::getId);
     }
 
-    private void sortedWeatherListByDate(String sort, List<Weather> sortedWeatherList) {
-        if(sort.equals("date")){
-            sortedWeatherList.sort(Comparator.comparing(Weather::getDate));
+    private <T> List<Weather> findAllById(List<T> hits, ToIntFunction<T> idOf) {
+        Optional<WeatherReadModel> model = getReadyReadModel();
+        Map<Integer, Weather> weathersById = new HashMap<>();
+        if (model.isPresent()) {
+            hits.forEach(hit -> model.get().findById(idOf.applyAsInt(hit))
+                    .ifPresent(weather -> weathersById.put(weather.getId(), weather)));
+        } else {
+            List<Integer> ids = new ArrayList<>(hits.size());
+            hits.forEach(hit -> ids.add(idOf.applyAsInt(hit)));
+            weatherStore.findAllById(ids).forEach(weather -> weathersById.put(weather.getId(), weather));
         }
 
-        if(sort.equals("-date")){
-            sortedWeatherList.sort(Comparator.comparing(Weather::getDate).reversed());
+        List<Weather> weathers = new ArrayList<>(hits.size());
+        for (T hit : hits) {
+            Weather weather = weathersById.get(idOf.applyAsInt(hit));
+            if (weather != null) {
+                weathers.add(weather);
+            }
         }
+        return weathers;
     }
 
-    private List<Weather> getFilterWeatherListByCity(List<String> cityList, List<Weather> sortedWeatherList) {
-        return sortedWeatherList.stream()
-                .filter(weather -> cityList.stream()
-                        .anyMatch(weather.getCity()::equalsIgnoreCase))
-                .collect(Collectors.toList());
+    private Optional<WeatherReadModel> getReadyReadModel() {
+        return readModel.filter(WeatherReadModel::isReady);
     }
 }
@@ -0,0 +1,191 @@
+package com.hackerrank.weather.service;
+
+import com.hackerrank.weather.model.Weather;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Queues the weathers of {@code POST /weather} and inserts them from a single writer thread, in transactions
+ * of up to {@code weather.batch.size} records, so that request threads do not wait for the store.
+ * <p>
+ * Records get their id when queued. The queue is lock-free and holds at most {@code weather.ingest.queue-capacity}
+ * records, counting those being inserted: beyond that, {@link #offer} refuses them. With
+ * {@code weather.ingest.read-your-writes=true}, queued records can be read back by id with {@link #findQueued}.
+ * <p>
+ * The records of a transaction that fails are inserted again one by one, so that one bad record does not sink the
+ * others; those that still fail are logged, counted in {@code weather.ingest.dropped} and dropped, although their
+ * clients were told they were accepted. Enabled with {@code weather.ingest.async.enabled=true}.
+ */
+@Service
+@ConditionalOnProperty(name = "weather.ingest.async.enabled", havingValue = "true")
+public class WeatherWriteBehind {
+    private static final Logger log = LoggerFactory.getLogger(WeatherWriteBehind.class);
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final WeatherService weatherService;
+    private final int capacity;
+    private final int batchSize;
+    private final boolean readYourWrites;
+
+    private final Queue<Weather> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Map<Integer, Weather> queuedById = new ConcurrentHashMap<>();
+    private final Thread writer = new Thread(this::write, "weather-write-behind");
+    private volatile boolean running = true;
+
+    private final Timer flushTimer;
+    private final Counter rejectedCounter;
+    private final Counter droppedCounter;
+
+    @Autowired
+    public WeatherWriteBehind(WeatherService weatherService, MeterRegistry meterRegistry,
+                              @Value("${weather.ingest.queue-capacity:10000}") int capacity,
+                              @Value("${weather.batch.size:500}") int batchSize,
+                              @Value("${weather.ingest.read-your-writes:true}") boolean readYourWrites) {
+        this.weatherService = weatherService;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.readYourWrites = readYourWrites;
+
+        Gauge.builder("weather.ingest.queue.depth", depth, AtomicInteger::get)
+                .description("Records queued or being inserted")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("weather.ingest.flush")
+                .description("Time to insert a batch of queued records")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("weather.ingest.rejected")
+                .description("Records refused because the queue was full")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("weather.ingest.dropped")
+                .description("Accepted records lost because their insert failed, alone or in their batch")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * Gives {@code weather} its id and queues it for insertion, unless the queue is full.
+     *
+     * @return whether the weather was queued.
+     */
+    public boolean offer(Weather weather) {
+        int queued;
+        do {
+            queued = depth.get();
+            if (!running || queued >= capacity) {
+                rejectedCounter.increment();
+                return false;
+            }
+        } while (!depth.compareAndSet(queued, queued + 1));
+
+        try {
+            weather.setId(weatherService.nextId());
+        } catch (RuntimeException e) {
+            depth.decrementAndGet();
+            throw e;
+        }
+        if (readYourWrites) {
+            queuedById.put(weather.getId(), weather);
+        }
+        queue.offer(weather);
+        if (queued == 0) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * @return the weather of the given id if it is queued or being inserted, and reads of queued records are enabled.
+     */
+    public Optional<Weather> findQueued(int id) {
+        return Optional.ofNullable(queuedById.get(id));
+    }
+
+    private void write() {
+        List<Weather> batch = new ArrayList<>(batchSize);
+        while (true) {
+            Weather weather;
+            while (batch.size() < batchSize && (weather = queue.poll()) != null) {
+                batch.add(weather);
+            }
+            if (batch.isEmpty()) {
+                // A record counted in the depth but not queued yet is about to be.
+                if (!running && depth.get() == 0) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+
+            Timer.Sample sample = Timer.start();
+            try {
+                weatherService.insertAll(batch);
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    drop(batch.get(0), e);
+                } else {
+                    log.warn("Could not insert {} queued weather records, from id {}; inserting them one by one",
+                            batch.size(), batch.get(0).getId(), e);
+                    insertEach(batch);
+                }
+            } finally {
+                sample.stop(flushTimer);
+            }
+
+            // Inserted records are only forgotten once the store and the indexes have them.
+            batch.forEach(inserted -> queuedById.remove(inserted.getId()));
+            depth.addAndGet(-batch.size());
+            batch.clear();
+        }
+    }
+
+    private void insertEach(List<Weather> batch) {
+        for (Weather weather : batch) {
+            try {
+                weatherService.insertAll(Collections.singletonList(weather));
+            } catch (RuntimeException e) {
+                drop(weather, e);
+            }
+        }
+    }
+
+    private void drop(Weather weather, RuntimeException e) {
+        droppedCounter.increment();
+        log.error("Dropping queued weather record {}", weather.getId(), e);
+    }
+
+    /**
+     * Refuses new records and waits for the queued ones to be inserted.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+}
@@ -0,0 +1,182 @@
+package com.hackerrank.weather.store;
+
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.repository.WeatherRepository;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the records in the {@code spring.datasource} database through {@link WeatherRepository}.
+ * <p>
+ * As a {@link Repository}, its JPA exceptions, such as those of its explicit flushes, are translated to
+ * {@code DataAccessException}s, like those of the {@code log} store.
+ */
+@Repository
+@ConditionalOnProperty(name = "weather.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaWeatherStore implements WeatherStore {
+    private final WeatherRepository weatherRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    /** Records of the days before this epoch day were dropped. */
+    private volatile int horizon = Integer.MIN_VALUE;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public JpaWeatherStore(WeatherRepository weatherRepository, TransactionTemplate transactionTemplate,
+                           @Value("${weather.batch.size:500}") int batchSize) {
+        this.weatherRepository = weatherRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public String getName() {
+        return "jpa";
+    }
+
+    @Override
+    public Weather save(Weather weather) {
+        WeatherStore.checkHorizon(Collections.singletonList(weather), horizon);
+        return weatherRepository.save(weather);
+    }
+
+    /**
+     * Inserts are sent as JDBC batches of {@code hibernate.jdbc.batch_size}, and the persistence context
+     * is cleared afterwards.
+     */
+    @Override
+    @Transactional
+    public List<Weather> saveAll(List<Weather> weathers) {
+        WeatherStore.checkHorizon(weathers, horizon);
+        List<Weather> savedWeathers = weatherRepository.saveAll(weathers);
+        entityManager.flush();
+        entityManager.clear();
+        return savedWeathers;
+    }
+
+    /**
+     * The records are read with {@code SELECT ... FOR UPDATE}, so that no other transaction saves them before this
+     * one commits.
+     */
+    @Override
+    @Transactional
+    public List<Weather> updateAll(Collection<Integer> ids, UnaryOperator<Weather> update) {
+        List<Weather> updated = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return updated;
+        }
+        entityManager.createQuery("select w from Weather w where w.id in :ids", Weather.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList()
+                .forEach(weather -> {
+                    Weather next = update.apply(weather);
+                    if (next != null) {
+                        updated.add(next);
+                    }
+                });
+        return saveAll(updated);
+    }
+
+    /**
+     * Draws the id from the sequence through the generator of {@link Weather}, which keeps it on insert.
+     */
+    @Override
+    @Transactional
+    public int nextId() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getMetamodel().entityPersister(Weather.class).getIdentifierGenerator();
+        return (Integer) generator.generate(session, null);
+    }
+
+    /**
+     * Records are inserted with {@link Session#save}, which, unlike a merge, does not look them up first.
+     */
+    @Override
+    @Transactional
+    public List<Weather> insertAll(List<Weather> weathers) {
+        WeatherStore.checkHorizon(weathers, horizon);
+        Session session = entityManager.unwrap(Session.class);
+        weathers.forEach(session::save);
+        entityManager.flush();
+        entityManager.clear();
+        return weathers;
+    }
+
+    /**
+     * A period is the range of its days in the {@code epoch_day} index, which H2 cannot drop as a table
+     * partition: its records are deleted {@code weather.batch.size} at a time, each chunk in its own transaction,
+     * so that none holds locks on, or undo for, a whole period.
+     * <p>
+     * The horizon is only kept in memory: after a restart, records of the dropped days are refused again once
+     * {@code WeatherRetention} has run, which it does at startup.
+     */
+    @Override
+    public int dropBefore(int epochDay) {
+        // Moved first, so that no record of those days is saved behind the deletes.
+        horizon = Math.max(horizon, epochDay);
+        int dropped = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> weatherRepository.deleteBefore(epochDay, batchSize));
+            dropped += deleted;
+        } while (deleted > 0);
+        return dropped;
+    }
+
+    @Override
+    public Optional<Weather> findById(int id) {
+        return weatherRepository.findById(id);
+    }
+
+    @Override
+    public List<Weather> findAllById(Collection<Integer> ids) {
+        return weatherRepository.findAllById(ids);
+    }
+
+    /**
+     * Runs the date/city filter, the ordering and the keyset page as a single repository query, so that only
+     * the matching rows are read, served by the {@code date} and {@code city_key} indexes of {@link Weather}.
+     */
+    @Override
+    public List<Weather> findAll(WeatherQuery query) {
+        return weatherRepository.findAll(query);
+    }
+
+    /**
+     * Each record is detached once consumed, so the persistence context, and the heap, stay flat
+     * whatever the size of the result.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(WeatherQuery query, Consumer<Weather> consumer) {
+        try (Stream<Weather> weathers = weatherRepository.streamAll(query)) {
+            weathers.forEach(weather -> {
+                consumer.accept(weather);
+                entityManager.detach(weather);
+            });
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.hackerrank.weather.store;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One file of the log, named after the log position of its first byte. Appends go through the channel,
+ * reads through a read-only mapping of the file.
+ * <p>
+ * A sealed segment is mapped whole, once. The active one is remapped only after {@link #REMAP_BYTES} have been
+ * appended past its mapping, and the records written since are read from the channel meanwhile, so that appends
+ * do not each leave a mapping behind until the old ones are collected.
+ */
+final class LogSegment implements Closeable {
+    static final String SUFFIX = ".log";
+    static final long REMAP_BYTES = 4 << 20;
+
+    private final long base;
+    private final Path path;
+    private final FileChannel channel;
+    private volatile long size;
+    private volatile boolean sealed;
+    private volatile MappedByteBuffer mapped;
+
+    LogSegment(Path directory, long base) throws IOException {
+        this.base = base;
+        this.path = directory.resolve(String.format("%020d%s", base, SUFFIX));
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.size = channel.size();
+    }
+
+    /**
+     * @return the log position of the segment, if {@code path} names one.
+     */
+    static Long parseBase(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(SUFFIX)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    long getBase() {
+        return base;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Writes {@code frames} at the end of the segment. Only one thread appends at a time.
+     *
+     * @return the offset in the segment at which they were written.
+     */
+    long append(ByteBuffer frames) throws IOException {
+        long offset = size;
+        long end = offset;
+        while (frames.hasRemaining()) {
+            end += channel.write(frames, end);
+        }
+        size = end;
+        return offset;
+    }
+
+    /**
+     * Marks the segment as no longer appended to, so that it is mapped whole.
+     */
+    void seal() {
+        sealed = true;
+    }
+
+    /**
+     * @return the segment from {@code offset} to the end of the data written, as of this call.
+     */
+    ByteBuffer read(long offset) throws IOException {
+        long end = size;
+        ByteBuffer buffer = map(end, 0).duplicate();
+        buffer.position((int) offset);
+        return buffer;
+    }
+
+    /**
+     * @return the {@link WeatherCodec} frame at {@code offset}, from the mapping, or read from the channel if it
+     * was written after the mapping.
+     */
+    ByteBuffer readFrame(long offset) throws IOException {
+        long end = size;
+        MappedByteBuffer map = map(end, sealed ? 0 : REMAP_BYTES);
+        if (offset + WeatherCodec.HEADER_BYTES <= map.capacity()) {
+            int length = WeatherCodec.HEADER_BYTES + map.getInt((int) offset);
+            if (offset + length <= map.capacity()) {
+                ByteBuffer frame = map.duplicate();
+                frame.position((int) offset).limit((int) offset + length);
+                return frame;
+            }
+        }
+
+        ByteBuffer header = readFully(offset, WeatherCodec.HEADER_BYTES);
+        return readFully(offset, WeatherCodec.HEADER_BYTES + header.getInt(0));
+    }
+
+    /**
+     * @param slack how many bytes written past the current mapping it may leave out.
+     * @return a mapping of the segment up to at least {@code end - slack}.
+     */
+    private MappedByteBuffer map(long end, long slack) throws IOException {
+        MappedByteBuffer map = mapped;
+        if (map != null && map.capacity() + slack >= end) {
+            return map;
+        }
+        synchronized (this) {
+            map = mapped;
+            if (map == null || map.capacity() + slack < end) {
+                map = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+                mapped = map;
+            }
+            return map;
+        }
+    }
+
+    private ByteBuffer readFully(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Weather record at offset " + offset + " of " + path + " is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Drops everything from {@code offset} on, such as a record torn by a crash.
+     */
+    void truncate(long offset) throws IOException {
+        channel.truncate(offset);
+        channel.force(true);
+        size = offset;
+        mapped = null;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Closes the segment and deletes its file. Readers that still hold a buffer of it keep their mapping.
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
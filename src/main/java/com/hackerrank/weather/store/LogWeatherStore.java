@@ -0,0 +1,666 @@
+package com.hackerrank.weather.store;
+
+import com.hackerrank.weather.index.WeatherQueryIndex;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Keeps the records in an append-only log of {@link WeatherCodec} frames, split into segment files of at most
+ * {@code weather.store.segment-bytes} under {@code weather.store.directory}. Records are found through an
+ * in-memory index of their log positions by id, epoch day and city, and read back from memory-mapped segments.
+ * <p>
+ * A save returns once its records are on disk: concurrent saves wait for a single {@code fsync}, which covers
+ * every record written before it (group commit). With {@code weather.store.fsync=false} they only reach
+ * the page cache. Saving an existing id appends a new version of the record.
+ * <p>
+ * Every {@code weather.store.snapshot-records} records, and on shutdown, the index is written to a snapshot
+ * along with the log position it covers. On startup the snapshot is loaded and only the records after that
+ * position are decoded; a record torn by a crash at the end of the log is dropped.
+ * <p>
+ * Dropping the records of the days before a horizon removes them from the index and keeps the horizon in a file,
+ * so that replays drop them too, and later saves of those days are refused. Segments are deleted, after each snapshot, once every record still indexed is
+ * after them: as records mostly arrive in date order, the segments of expired periods go whole, as do those of
+ * records since saved again, such as downsampled ones.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.store", havingValue = "log")
+public class LogWeatherStore implements WeatherStore, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(LogWeatherStore.class);
+    static final String SNAPSHOT_FILE = "index.snapshot";
+    static final String HORIZON_FILE = "retention.horizon";
+    private static final int SNAPSHOT_MAGIC = 0x57534e50;
+    /** 2 since undated records are indexed by day, under {@code WeatherCursor.UNDATED}. */
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final int snapshotRecords;
+
+    private final ConcurrentNavigableMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final PositionIndex index = new PositionIndex();
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    /** Taken by snapshots and compactions, which write the same temporary file. */
+    private final Object snapshotLock = new Object();
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-store-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+
+    /**
+     * Guarded by {@link #writeLock}, as are {@link #writtenPosition}, {@link #nextId}, {@link #unsnapshotted}
+     * and {@link #horizon}.
+     */
+    private LogSegment active;
+    private long writtenPosition;
+    private int nextId = 1;
+    private int unsnapshotted;
+    /** Records of the days before this epoch day were dropped. */
+    private int horizon = Integer.MIN_VALUE;
+    private volatile long syncedPosition;
+
+    @Autowired
+    public LogWeatherStore(@Value("${weather.store.directory:data}") String directory,
+                           @Value("${weather.store.segment-bytes:67108864}") long segmentBytes,
+                           @Value("${weather.store.fsync:true}") boolean fsync,
+                           @Value("${weather.store.snapshot-records:100000}") int snapshotRecords) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("weather.store.segment-bytes must be between 1 and " + Integer.MAX_VALUE);
+        }
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.snapshotRecords = snapshotRecords;
+        open();
+    }
+
+    private void open() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Long base = LogSegment.parseBase(file);
+                if (base != null) {
+                    segments.put(base, new LogSegment(directory, base));
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, new LogSegment(directory, 0));
+            syncDirectory();
+        }
+        active = segments.lastEntry().getValue();
+        segments.headMap(active.getBase()).values().forEach(LogSegment::seal);
+
+        horizon = readHorizon();
+        long replayFrom = loadSnapshot(active.getBase() + active.getSize());
+        // The snapshot may predate the last drop.
+        index.removeBefore(horizon);
+        int replayed = 0;
+        for (LogSegment segment : segments.values()) {
+            if (segment.getBase() + segment.getSize() > replayFrom) {
+                replayed += replay(segment, Math.max(replayFrom - segment.getBase(), 0));
+            }
+        }
+
+        writtenPosition = active.getBase() + active.getSize();
+        syncedPosition = writtenPosition;
+        unsnapshotted = replayed;
+        log.info("Opened weather store {}: {} records, {} replayed from position {}, in {} ms", directory.toAbsolutePath(),
+                index.size(), replayed, replayFrom, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Indexes the records of {@code segment} from {@code offset} on, except those before the {@link #horizon},
+     * which remove any previous version instead. A frame that is truncated or does not match
+     * its checksum ends the log if it is in the last segment, and is dropped with everything after it.
+     *
+     * @return the number of records indexed.
+     */
+    private int replay(LogSegment segment, long offset) throws IOException {
+        ByteBuffer buffer = segment.read(offset);
+        int count = 0;
+        while (buffer.hasRemaining()) {
+            int position = buffer.position();
+            int length = WeatherCodec.check(buffer);
+            if (length < 0) {
+                if (segment != active) {
+                    throw new IOException("Corrupt weather record at position " + (segment.getBase() + position));
+                }
+                log.warn("Dropping {} bytes of torn weather records at position {}", buffer.remaining(),
+                        segment.getBase() + position);
+                segment.truncate(position);
+                break;
+            }
+
+            Weather weather = WeatherCodec.decode(buffer.duplicate());
+            if (weather.getEpochDay() != null && weather.getEpochDay() < horizon) {
+                index.remove(weather.getId());
+            } else {
+                index.put(weather, segment.getBase() + position);
+            }
+            nextId = Math.max(nextId, weather.getId() + 1);
+            count++;
+            buffer.position(position + length);
+        }
+        return count;
+    }
+
+    @Override
+    public String getName() {
+        return "log";
+    }
+
+    @Override
+    public Weather save(Weather weather) {
+        return saveAll(Collections.singletonList(weather)).get(0);
+    }
+
+    /**
+     * Appends the records as one write, ids being given to those without, and waits until they are on disk.
+     */
+    @Override
+    public List<Weather> saveAll(List<Weather> weathers) {
+        try {
+            long end;
+            synchronized (writeLock) {
+                end = append(weathers);
+            }
+            if (fsync) {
+                sync(end);
+            }
+            return weathers;
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not write to the weather store", e);
+        }
+    }
+
+    /**
+     * Reads the records and appends their updates under the {@link #writeLock}, then waits until they are on disk.
+     */
+    @Override
+    public List<Weather> updateAll(Collection<Integer> ids, UnaryOperator<Weather> update) {
+        try {
+            List<Weather> updated = new ArrayList<>();
+            long end;
+            synchronized (writeLock) {
+                for (Integer id : ids) {
+                    index.findById(id).map(update).ifPresent(updated::add);
+                }
+                if (updated.isEmpty()) {
+                    return updated;
+                }
+                end = append(updated);
+            }
+            if (fsync) {
+                sync(end);
+            }
+            return updated;
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not write to the weather store", e);
+        }
+    }
+
+    /**
+     * Appends the records as one write, ids being given to those without. Called under {@link #writeLock}.
+     *
+     * @return the position of the end of the log after them.
+     */
+    private long append(List<Weather> weathers) throws IOException {
+        WeatherStore.checkHorizon(weathers, horizon);
+        byte[][] frames = new byte[weathers.size()][];
+        int length = 0;
+        for (int i = 0; i < frames.length; i++) {
+            Weather weather = weathers.get(i);
+            if (weather.getId() == null) {
+                weather.setId(nextId);
+            }
+            nextId = Math.max(nextId, weather.getId() + 1);
+            frames[i] = WeatherCodec.encode(weather);
+            length += frames[i].length;
+        }
+
+        if (active.getSize() > 0 && active.getSize() + length > segmentBytes) {
+            roll();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] frame : frames) {
+            buffer.put(frame);
+        }
+        buffer.flip();
+
+        long position = active.getBase() + active.append(buffer);
+        for (int i = 0; i < frames.length; i++) {
+            index.put(weathers.get(i), position);
+            position += frames[i].length;
+        }
+        writtenPosition = position;
+        unsnapshotted += frames.length;
+
+        if (unsnapshotted >= snapshotRecords && snapshotting.compareAndSet(false, true)) {
+            snapshotExecutor.execute(this::snapshotQuietly);
+        }
+        return position;
+    }
+
+    /**
+     * Seals the active segment and starts the next one where it ends. Called under {@link #writeLock}.
+     */
+    private void roll() throws IOException {
+        active.force();
+        active.seal();
+        LogSegment next = new LogSegment(directory, active.getBase() + active.getSize());
+        syncDirectory();
+        segments.put(next.getBase(), next);
+        active = next;
+    }
+
+    /**
+     * Forces the entries of the directory, so that a segment just created, or a file just moved in place of
+     * another, is still there after a crash. Platforms that cannot open a directory, such as Windows, skip it.
+     */
+    private void syncDirectory() throws IOException {
+        if (!fsync) {
+            return;
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (FileChannel opened = channel) {
+            opened.force(true);
+        }
+    }
+
+    /**
+     * Returns once the log is on disk up to {@code position}. Only one thread forces the log at a time;
+     * the threads waiting meanwhile usually find their records covered by it and return without forcing.
+     */
+    private void sync(long position) throws IOException {
+        if (syncedPosition >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedPosition >= position) {
+                return;
+            }
+            long target;
+            LogSegment segment;
+            synchronized (writeLock) {
+                target = writtenPosition;
+                segment = active;
+            }
+            // Segments before the active one were forced when rolled.
+            segment.force();
+            syncedPosition = target;
+        }
+    }
+
+    @Override
+    public int nextId() {
+        synchronized (writeLock) {
+            return nextId++;
+        }
+    }
+
+    @Override
+    public List<Weather> insertAll(List<Weather> weathers) {
+        return saveAll(weathers);
+    }
+
+    /**
+     * Moves the horizon to {@code epochDay} and removes the records before it from the index, then
+     * {@link #compact compacts} the log in the background.
+     */
+    @Override
+    public int dropBefore(int epochDay) {
+        int dropped;
+        synchronized (writeLock) {
+            if (epochDay > horizon) {
+                try {
+                    writeHorizon(epochDay);
+                } catch (IOException e) {
+                    throw new DataAccessResourceFailureException("Could not write to the weather store", e);
+                }
+                horizon = epochDay;
+            }
+            dropped = index.removeBefore(epochDay);
+        }
+        if (dropped > 0) {
+            snapshotExecutor.execute(this::compactQuietly);
+        }
+        return dropped;
+    }
+
+    private void writeHorizon(int epochDay) throws IOException {
+        Path temporary = directory.resolve(HORIZON_FILE + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary.toFile())) {
+            new DataOutputStream(stream).writeInt(epochDay);
+            stream.getFD().sync();
+        }
+        Files.move(temporary, directory.resolve(HORIZON_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+
+    private int readHorizon() throws IOException {
+        Path file = directory.resolve(HORIZON_FILE);
+        if (!Files.exists(file)) {
+            return Integer.MIN_VALUE;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not compact the weather store", e);
+        }
+    }
+
+    /**
+     * Snapshots the index, then deletes the sealed segments that end before the first position it holds, so that
+     * neither the snapshot nor a replay needs them.
+     */
+    public void compact() throws IOException {
+        synchronized (snapshotLock) {
+            // Records only move forward in the log, so no position in the snapshot can be before this one.
+            long firstPosition = index.firstPosition();
+            snapshot();
+
+            LogSegment current;
+            synchronized (writeLock) {
+                current = active;
+            }
+            int deleted = 0;
+            for (LogSegment segment : segments.values()) {
+                if (segment == current || segment.getBase() + segment.getSize() > firstPosition) {
+                    break;
+                }
+                segments.remove(segment.getBase());
+                segment.delete();
+                deleted++;
+            }
+            if (deleted > 0) {
+                log.info("Deleted {} segments of the weather store that no record needs", deleted);
+            }
+        }
+    }
+
+    @Override
+    public Optional<Weather> findById(int id) {
+        return index.findById(id);
+    }
+
+    @Override
+    public List<Weather> findAllById(Collection<Integer> ids) {
+        List<Weather> weathers = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            index.findById(id).ifPresent(weathers::add);
+        }
+        return weathers;
+    }
+
+    @Override
+    public List<Weather> findAll(WeatherQuery query) {
+        return index.find(query);
+    }
+
+    @Override
+    public void forEach(WeatherQuery query, Consumer<Weather> consumer) {
+        index.stream(query).forEach(consumer);
+    }
+
+    private Weather read(long position) {
+        Map.Entry<Long, LogSegment> segment = segments.floorEntry(position);
+        try {
+            return WeatherCodec.decode(segment.getValue().readFrame(position - segment.getKey()));
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not read from the weather store", e);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write a snapshot of the weather store", e);
+        } finally {
+            snapshotting.set(false);
+        }
+    }
+
+    /**
+     * Writes the index of every record up to the current end of the log to the snapshot file, replacing
+     * it atomically, once that part of the log is on disk.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long start = System.nanoTime();
+            long end;
+            int snapshotNextId;
+            synchronized (writeLock) {
+                end = writtenPosition;
+                snapshotNextId = nextId;
+                unsnapshotted = 0;
+            }
+            synchronized (syncLock) {
+                if (syncedPosition < end) {
+                    LogSegment segment;
+                    synchronized (writeLock) {
+                        segment = active;
+                    }
+                    segment.force();
+                    syncedPosition = Math.max(syncedPosition, end);
+                }
+            }
+
+            Path file = directory.resolve(SNAPSHOT_FILE);
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileOutputStream stream = new FileOutputStream(temporary.toFile())) {
+                CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(stream, 1 << 16), new CRC32());
+                DataOutputStream out = new DataOutputStream(checked);
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(end);
+                out.writeInt(snapshotNextId);
+                index.writeTo(out, end);
+                out.flush();
+                new DataOutputStream(stream).writeLong(checked.getChecksum().getValue());
+                stream.getFD().sync();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+            log.info("Wrote a snapshot of the weather store up to position {} in {} ms", end,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Loads the snapshot, unless it is missing, damaged, or ahead of the log.
+     *
+     * @param logEnd the position of the end of the log.
+     * @return the log position from which records must be replayed.
+     */
+    private long loadSnapshot(long logEnd) {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(stream, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a weather store snapshot");
+            }
+            long end = in.readLong();
+            if (end > logEnd) {
+                throw new IOException("The snapshot is ahead of the log");
+            }
+            int snapshotNextId = in.readInt();
+            index.readFrom(in);
+            long checksum = checked.getChecksum().getValue();
+            if (new DataInputStream(stream).readLong() != checksum) {
+                throw new IOException("The snapshot does not match its checksum");
+            }
+
+            nextId = snapshotNextId;
+            return end;
+        } catch (IOException e) {
+            log.warn("Ignoring the snapshot of the weather store: {}", e.getMessage());
+            index.clear();
+            return 0;
+        }
+    }
+
+    /**
+     * Takes a last snapshot, so that the next start replays nothing, and closes the segments.
+     */
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        boolean dirty;
+        synchronized (writeLock) {
+            dirty = unsnapshotted > 0;
+        }
+        if (dirty) {
+            snapshot();
+        }
+        for (LogSegment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Log positions of the records, by id, epoch day and city.
+     */
+    private class PositionIndex extends WeatherQueryIndex<Long> {
+
+        @Override
+        protected Weather resolve(Long position) {
+            return read(position);
+        }
+
+        int size() {
+            return valuesById.size();
+        }
+
+        /**
+         * @return the lowest position of a record, or {@link Long#MAX_VALUE} if there is none.
+         */
+        long firstPosition() {
+            return valuesById.values().stream().mapToLong(Long::longValue).min().orElse(Long.MAX_VALUE);
+        }
+
+        void clear() {
+            valuesById.clear();
+            idsByDay.clear();
+            idsByCityAndDay.clear();
+        }
+
+        /**
+         * Writes the records before {@code end}: the position of each id, then the ids of each day, then
+         * the ids of each day of each city. Entries are preceded by {@code true}, and a list by its size.
+         */
+        void writeTo(DataOutput out, long end) throws IOException {
+            for (Map.Entry<Integer, Long> entry : valuesById.entrySet()) {
+                if (entry.getValue() < end) {
+                    out.writeBoolean(true);
+                    out.writeInt(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            }
+            out.writeBoolean(false);
+
+            writeDays(out, idsByDay, end);
+            for (Map.Entry<String, ConcurrentNavigableMap<Integer, Set<Integer>>> city : idsByCityAndDay.entrySet()) {
+                out.writeBoolean(true);
+                out.writeUTF(city.getKey());
+                writeDays(out, city.getValue(), end);
+            }
+            out.writeBoolean(false);
+        }
+
+        private void writeDays(DataOutput out, Map<Integer, Set<Integer>> byDay, long end) throws IOException {
+            for (Map.Entry<Integer, Set<Integer>> day : byDay.entrySet()) {
+                int[] ids = day.getValue().stream()
+                        .filter(id -> {
+                            Long position = valuesById.get(id);
+                            return position != null && position < end;
+                        })
+                        .mapToInt(Integer::intValue).toArray();
+                if (ids.length > 0) {
+                    out.writeBoolean(true);
+                    out.writeInt(day.getKey());
+                    out.writeInt(ids.length);
+                    for (int id : ids) {
+                        out.writeInt(id);
+                    }
+                }
+            }
+            out.writeBoolean(false);
+        }
+
+        void readFrom(DataInput in) throws IOException {
+            while (in.readBoolean()) {
+                valuesById.put(in.readInt(), in.readLong());
+            }
+            readDays(in, idsByDay);
+            while (in.readBoolean()) {
+                readDays(in, idsByCityAndDay.computeIfAbsent(in.readUTF(), key -> new ConcurrentSkipListMap<>()));
+            }
+        }
+
+        private void readDays(DataInput in, ConcurrentNavigableMap<Integer, Set<Integer>> byDay) throws IOException {
+            while (in.readBoolean()) {
+                int day = in.readInt();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    addId(byDay, day, in.readInt());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.hackerrank.weather.store;
+
+import com.hackerrank.weather.model.TemperatureRollup;
+import com.hackerrank.weather.model.Weather;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+/**
+ * Binary form of a {@link Weather} in the log: a frame of the payload length and its CRC-32, then the id,
+ * a byte flagging the fields that are present, and those fields, temperatures packed 8 bytes each, and the
+ * rollup as its min, max and mean then its count.
+ */
+final class WeatherCodec {
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private static final int DATE = 1;
+    private static final int LAT = 1 << 1;
+    private static final int LON = 1 << 2;
+    private static final int CITY = 1 << 3;
+    private static final int STATE = 1 << 4;
+    private static final int TEMPERATURES = 1 << 5;
+    private static final int ROLLUP = 1 << 6;
+    private static final int ROLLUP_BYTES = 3 * Double.BYTES + Integer.BYTES;
+
+    private WeatherCodec() {
+    }
+
+    /**
+     * @return the framed record.
+     */
+    static byte[] encode(Weather weather) {
+        byte[] city = weather.getCity() == null ? null : weather.getCity().getBytes(StandardCharsets.UTF_8);
+        byte[] state = weather.getState() == null ? null : weather.getState().getBytes(StandardCharsets.UTF_8);
+        double[] temperatures = weather.getTemperatures();
+        TemperatureRollup rollup = weather.getRollup();
+
+        int flags = 0;
+        int length = Integer.BYTES + 1;
+        if (weather.getDate() != null) {
+            flags |= DATE;
+            length += Long.BYTES;
+        }
+        if (weather.getLat() != null) {
+            flags |= LAT;
+            length += Float.BYTES;
+        }
+        if (weather.getLon() != null) {
+            flags |= LON;
+            length += Float.BYTES;
+        }
+        if (city != null) {
+            flags |= CITY;
+            length += Integer.BYTES + city.length;
+        }
+        if (state != null) {
+            flags |= STATE;
+            length += Integer.BYTES + state.length;
+        }
+        if (temperatures != null) {
+            flags |= TEMPERATURES;
+            length += Integer.BYTES + temperatures.length * Double.BYTES;
+        }
+        if (rollup != null) {
+            flags |= ROLLUP;
+            length += ROLLUP_BYTES;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+        buffer.putInt(length).putInt(0).putInt(weather.getId()).put((byte) flags);
+        if (weather.getDate() != null) {
+            buffer.putLong(weather.getDate().getTime());
+        }
+        if (weather.getLat() != null) {
+            buffer.putFloat(weather.getLat());
+        }
+        if (weather.getLon() != null) {
+            buffer.putFloat(weather.getLon());
+        }
+        if (city != null) {
+            buffer.putInt(city.length).put(city);
+        }
+        if (state != null) {
+            buffer.putInt(state.length).put(state);
+        }
+        if (temperatures != null) {
+            buffer.putInt(temperatures.length);
+            for (double temperature : temperatures) {
+                buffer.putDouble(temperature);
+            }
+        }
+        if (rollup != null) {
+            buffer.putDouble(rollup.getMin()).putDouble(rollup.getMax()).putDouble(rollup.getMean()).putInt(rollup.getCount());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, length);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * @param frame positioned at the start of a frame that is known to be complete.
+     */
+    static Weather decode(ByteBuffer frame) {
+        frame.position(frame.position() + HEADER_BYTES);
+
+        Weather weather = new Weather();
+        weather.setId(frame.getInt());
+        int flags = frame.get();
+        if ((flags & DATE) != 0) {
+            weather.setDate(new Date(frame.getLong()));
+        }
+        if ((flags & LAT) != 0) {
+            weather.setLat(frame.getFloat());
+        }
+        if ((flags & LON) != 0) {
+            weather.setLon(frame.getFloat());
+        }
+        if ((flags & CITY) != 0) {
+            weather.setCity(getString(frame));
+        }
+        if ((flags & STATE) != 0) {
+            weather.setState(getString(frame));
+        }
+        if ((flags & TEMPERATURES) != 0) {
+            double[] temperatures = new double[frame.getInt()];
+            frame.asDoubleBuffer().get(temperatures);
+            frame.position(frame.position() + temperatures.length * Double.BYTES);
+            weather.setTemperatures(temperatures);
+        }
+        if ((flags & ROLLUP) != 0) {
+            weather.setRollup(new TemperatureRollup(frame.getDouble(), frame.getDouble(), frame.getDouble(), frame.getInt()));
+        }
+        return weather;
+    }
+
+    /**
+     * @param buffer positioned at the start of a frame, limited to the end of the data written.
+     * @return the length of the frame, or -1 if it is truncated or does not match its checksum.
+     */
+    static int check(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES) {
+            return -1;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        if (length <= Integer.BYTES || length > buffer.remaining() - HEADER_BYTES) {
+            return -1;
+        }
+
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start + HEADER_BYTES).limit(start + HEADER_BYTES + length);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(start + Integer.BYTES) ? HEADER_BYTES + length : -1;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
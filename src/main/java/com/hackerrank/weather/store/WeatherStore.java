@@ -0,0 +1,98 @@
+package com.hackerrank.weather.store;
+
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Where weather records are kept, selected with {@code weather.store}: {@code jpa}, the default, for the
+ * {@code WeatherRepository} database, or {@code log} for {@link LogWeatherStore} files.
+ * <p>
+ * Once the days before an epoch day have been dropped, saving a record of one of them fails with a
+ * {@link DataIntegrityViolationException}, so that no store keeps records that the next drop would remove.
+ */
+public interface WeatherStore {
+
+    /**
+     * @return the value of {@code weather.store} that selects this store.
+     */
+    String getName();
+
+    /**
+     * @throws DataIntegrityViolationException if the record is of a dropped day.
+     */
+    Weather save(Weather weather);
+
+    /**
+     * Saves the given weathers as one write, or none of them if one is of a dropped day.
+     *
+     * @return the saved weathers, with their ids, in the same order.
+     */
+    List<Weather> saveAll(List<Weather> weathers);
+
+    /**
+     * Reads the current version of each record of the given ids and saves what {@code update} returns for it, as
+     * one write that no other save interleaves with, so that none of the updates is built from a stale record.
+     *
+     * @param update returns the new version of a record, or {@code null} to leave it as it is.
+     * @return the saved weathers.
+     */
+    List<Weather> updateAll(Collection<Integer> ids, UnaryOperator<Weather> update);
+
+    /**
+     * Reserves an id for a record that is inserted later with {@link #insertAll}.
+     */
+    int nextId();
+
+    /**
+     * Saves as one write new records whose ids were reserved with {@link #nextId()}.
+     *
+     * @return the given weathers.
+     */
+    List<Weather> insertAll(List<Weather> weathers);
+
+    /**
+     * Deletes every record of a day before {@code epochDay}, whole periods at a time where the store can,
+     * and refuses those saved afterwards.
+     *
+     * @return the number of records deleted.
+     */
+    int dropBefore(int epochDay);
+
+    Optional<Weather> findById(int id);
+
+    /**
+     * @return the records of the given ids that exist, in no particular order.
+     */
+    List<Weather> findAllById(Collection<Integer> ids);
+
+    /**
+     * @return the records matching the filter of the query, in its order, from its keyset page on.
+     */
+    List<Weather> findAll(WeatherQuery query);
+
+    /**
+     * Same as {@link #findAll(WeatherQuery)}, but hands the records to {@code consumer} one by one as they are read.
+     */
+    void forEach(WeatherQuery query, Consumer<Weather> consumer);
+
+    /**
+     * @param horizon the first epoch day kept.
+     * @throws DataIntegrityViolationException if one of the records is of a day before {@code horizon}.
+     */
+    static void checkHorizon(Collection<Weather> weathers, int horizon) {
+        for (Weather weather : weathers) {
+            if (weather.getEpochDay() != null && weather.getEpochDay() < horizon) {
+                throw new DataIntegrityViolationException("Weather of " + weather.getLocalDate()
+                        + " is before the retention horizon " + LocalDate.ofEpochDay(horizon));
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.hackerrank.weather;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Starts the service with the {@code fast} profile in a new JVM, so that nothing is already loaded, and fails if
+ * its first request is answered later than {@code weather.startup.budget-ms} after the start of the JVM.
+ * <p>
+ * The budget, 15 s by default, is about twice the time measured on a single CPU; it is meant to catch work added
+ * to the startup, such as a bean loading data eagerly, not to measure it: see the {@code StartupTest} benchmark.
+ * As a wall-clock budget depends on the machine and its load, it only runs with the {@code startup} build profile.
+ */
+public class StartupTimeTest {
+    private static final long BUDGET_MILLIS = Long.getLong("weather.startup.budget-ms", 15_000);
+    private static final long TIMEOUT_SECONDS = 60;
+    private static final Pattern RESULT = Pattern.compile("first-request-ms=(\\d+)");
+
+    @Test
+    public void testFirstRequestWithinBudget() throws IOException, InterruptedException {
+        List<String> command = Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-classpath", System.getProperty("java.class.path"),
+                Application.class.getName(),
+                "--spring.profiles.active=fast", "--weather.startup.check=true", "--server.port=0");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> output = Collections.synchronizedList(new ArrayList<>());
+        Thread reader = readOutput(process, output);
+        if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            fail("The service did not stop within " + TIMEOUT_SECONDS + " s of its start:\n" + join(output));
+        }
+        // The end of the output, still buffered when the process exited.
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+
+        Long firstRequestMillis = null;
+        for (String line : new ArrayList<>(output)) {
+            Matcher matcher = RESULT.matcher(line);
+            if (matcher.find()) {
+                firstRequestMillis = Long.parseLong(matcher.group(1));
+            }
+        }
+        if (firstRequestMillis == null || process.exitValue() != 0) {
+            fail("The service did not answer its startup check:\n" + join(output));
+        }
+        assertTrue("First request answered after " + firstRequestMillis + " ms, over the budget of "
+                + BUDGET_MILLIS + " ms", firstRequestMillis <= BUDGET_MILLIS);
+    }
+
+    /**
+     * Reads the output of the process on a thread of its own, so that a process that hangs is stopped by the
+     * timeout of {@link Process#waitFor(long, TimeUnit)} rather than blocking a read.
+     *
+     * @return the thread, which adds each line to {@code output} and ends with the output of the process.
+     */
+    private static Thread readOutput(Process process, List<String> output) {
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                for (String line; (line = in.readLine()) != null; ) {
+                    output.add(line);
+                }
+            } catch (IOException e) {
+                // The process was stopped.
+            }
+        }, "startup-output");
+        reader.setDaemon(true);
+        reader.start();
+        return reader;
+    }
+
+    private static String join(List<String> output) {
+        synchronized (output) {
+            return String.join("\n", output);
+        }
+    }
+}
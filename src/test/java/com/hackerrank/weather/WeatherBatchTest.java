@@ -0,0 +1,127 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code POST /weather/batch}, in transactions of two records.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "weather.batch.size=2")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherBatchTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testJsonArrayIsSaved() throws Exception {
+        ArrayNode payload = OBJECT_MAPPER.createArrayNode();
+        for (int i = 0; i < 5; i++) {
+            payload.add(weather("2019-06-1" + i, "Chicago", 41.88, -87.62, 20 + i));
+        }
+
+        JsonNode results = postBatch("application/json", payload.toString());
+
+        assertEquals(5, results.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, results.get(i).get("index").asInt());
+            assertFalse(results.get(i).has("error"));
+        }
+        assertEquals(ids(getJson(mockMvc, "/weather")), ids(results));
+    }
+
+    @Test
+    public void testNdjsonIsSaved() throws Exception {
+        String payload = weather("2019-06-11", "Chicago", 41.88, -87.62, 21) + "\n"
+                + weather("2019-06-12", "Oakland", 37.80, -122.27, 28) + "\n"
+                + weather("2019-06-13", "London", 51.51, -0.12, 11) + "\n";
+
+        JsonNode results = postBatch("application/x-ndjson", payload);
+
+        assertEquals(3, results.size());
+        JsonNode saved = getJson(mockMvc, "/weather");
+        assertEquals(ids(saved), ids(results));
+        assertEquals("Oakland", saved.get(1).get("city").asText());
+    }
+
+    @Test
+    public void testOnlyBadItemsAreReported() throws Exception {
+        String longCity = String.join("", Collections.nCopies(300, "x"));
+        double[] tooManyReadings = new double[2000];
+        ArrayNode payload = OBJECT_MAPPER.createArrayNode()
+                .add(weather("2019-06-11", "Chicago", 41.88, -87.62, 21))
+                // Fails in the database, with the first record of its transaction.
+                .add(weather("2019-06-11", longCity, 41.88, -87.62, 21))
+                .add(weather("2019-06-12", "Oakland", 37.80, -122.27, 28))
+                // Fails validation.
+                .add(weather("2019-06-12", "Denver", 39.74, -104.99, tooManyReadings))
+                .add(OBJECT_MAPPER.createObjectNode().put("date", "not a date"))
+                .add(weather("2019-06-13", "London", 51.51, -0.12, 11));
+
+        JsonNode results = postBatch("application/json", payload.toString());
+
+        assertEquals(6, results.size());
+        List<Integer> failed = Arrays.asList(1, 3, 4);
+        for (int i = 0; i < results.size(); i++) {
+            JsonNode result = results.get(i);
+            assertEquals(i, result.get("index").asInt());
+            assertEquals(result.toString(), failed.contains(i), result.has("error"));
+            assertEquals(result.toString(), !failed.contains(i), result.has("id"));
+        }
+
+        JsonNode saved = getJson(mockMvc, "/weather");
+        assertEquals(Arrays.asList(results.get(0).get("id").asInt(), results.get(2).get("id").asInt(),
+                results.get(5).get("id").asInt()), ids(saved));
+    }
+
+    @Test
+    public void testIdsOfThePayloadAreIgnored() throws Exception {
+        ArrayNode payload = OBJECT_MAPPER.createArrayNode()
+                .add(weather("2019-06-11", "Chicago", 41.88, -87.62, 21).put("id", -5))
+                .add(weather("2019-06-12", "Oakland", 37.80, -122.27, 28).put("id", 1_000_000));
+
+        List<Integer> batchIds = ids(postBatch("application/json", payload.toString()));
+        int single = create(mockMvc, weather("2019-06-13", "London", 51.51, -0.12, 11).put("id", batchIds.get(0)));
+
+        assertFalse(batchIds.contains(-5));
+        assertFalse(batchIds.contains(1_000_000));
+        assertFalse(batchIds.contains(single));
+        assertEquals(3, getJson(mockMvc, "/weather").size());
+    }
+
+    @Test
+    public void testSyntaxErrorEndsThePayload() throws Exception {
+        String payload = "[" + weather("2019-06-11", "Chicago", 41.88, -87.62, 21) + ", {\"city\": ";
+
+        JsonNode results = postBatch("application/json", payload);
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).has("id"));
+        assertTrue(results.get(1).has("error"));
+        assertEquals(1, getJson(mockMvc, "/weather").size());
+    }
+
+    private JsonNode postBatch(String contentType, String payload) throws Exception {
+        return read(mockMvc.perform(post("/weather/batch").contentType(contentType).content(payload))
+                .andExpect(status().isOk())
+                .andReturn());
+    }
+}
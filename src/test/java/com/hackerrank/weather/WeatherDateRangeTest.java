@@ -0,0 +1,86 @@
+package com.hackerrank.weather;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherDateRangeTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    /** The ids of the records of 2019-06-10 to 2019-06-14, one a day. */
+    private final List<Integer> ids = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        for (int day = 10; day <= 14; day++) {
+            ids.add(create(mockMvc, weather("2019-06-" + day, "Chicago", 41.88, -87.62, day)));
+        }
+    }
+
+    @Test
+    public void testRangeIsInclusive() throws Exception {
+        assertRange("?from=2019-06-11&to=2019-06-13", ids.subList(1, 4));
+        assertRange("?from=2019-06-13", ids.subList(3, 5));
+        assertRange("?to=2019-06-11", ids.subList(0, 2));
+        assertRange("?from=2019-06-12&to=2019-06-12", ids.subList(2, 3));
+    }
+
+    @Test
+    public void testDateIsIntersectedWithTheRange() throws Exception {
+        assertRange("?date=2019-06-12&from=2019-06-11&to=2019-06-13", ids.subList(2, 3));
+        assertRange("?date=2019-06-12&from=2019-06-12", ids.subList(2, 3));
+        assertRange("?date=2019-06-12&to=2019-06-12", ids.subList(2, 3));
+        assertRange("?date=2019-06-14&from=2019-06-11&to=2019-06-13", Collections.emptyList());
+        assertRange("?date=2019-06-10&from=2019-06-11", Collections.emptyList());
+    }
+
+    @Test
+    public void testEmptyRangeMatchesNothing() throws Exception {
+        assertRange("?from=2019-06-13&to=2019-06-11", Collections.emptyList());
+        assertRange("?from=2019-07-01", Collections.emptyList());
+    }
+
+    @Test
+    public void testRangeIsCombinedWithCityAndSort() throws Exception {
+        int oakland = create(mockMvc, weather("2019-06-12", "Oakland", 37.80, -122.27, 28));
+
+        assertRange("?from=2019-06-12&to=2019-06-13&city=oakland", Collections.singletonList(oakland));
+        assertRange("?from=2019-06-12&to=2019-06-13&sort=-date",
+                Arrays.asList(ids.get(3), ids.get(2), oakland));
+    }
+
+    @Test
+    public void testMalformedDateIsRejected() throws Exception {
+        mockMvc.perform(get("/weather?from=2019-13-01")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather?to=yesterday")).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Checks the ids returned by {@code GET /weather}, at once and streamed, for the given parameters.
+     */
+    private void assertRange(String query, List<Integer> expected) throws Exception {
+        assertEquals(query, expected, ids(getJson(mockMvc, "/weather" + query)));
+        assertEquals(query, expected, ids(read(performAsync(mockMvc, get("/weather" + query + "&stream=true")))));
+    }
+}
@@ -0,0 +1,194 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.hackerrank.weather.export.WeatherExporter;
+import com.hackerrank.weather.model.WeatherExport;
+import com.hackerrank.weather.store.WeatherStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code /weather/exports}, written to a directory of its own that each test starts without.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "weather.export.directory=" + WeatherExportTest.DIRECTORY)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherExportTest {
+    static final String DIRECTORY = "target/test-exports";
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WeatherStore weatherStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private int chicago;
+    private int london;
+
+    @Before
+    public void setUp() throws Exception {
+        chicago = create(mockMvc, weather("2019-06-10", "Chicago, IL", 41.88, -87.62, 20, 30));
+        london = create(mockMvc, weather("2019-06-10", "London", 51.51, -0.12, 12));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(Paths.get(DIRECTORY));
+    }
+
+    @Test
+    public void testExportIsListedThenDownloaded() throws Exception {
+        String location = startExport("/weather/exports");
+        String name = nameOf(location);
+        assertTrue(location, location.endsWith("/weather/exports/" + name));
+
+        JsonNode export = awaitExport(name);
+        assertEquals(2, export.get("records").asLong());
+        assertEquals(london, export.get("lastId").asInt());
+        assertFalse(export.has("afterId"));
+
+        List<String> rows = download(location, export.get("bytes").asLong());
+        assertEquals(3, rows.size());
+        assertTrue(rows.get(0), rows.get(0).startsWith("id,date,lat,lon,city,state,"));
+        assertTrue(rows.get(1), rows.get(1).startsWith(chicago + ",2019-06-10,41.88,-87.62,\"Chicago, IL\","));
+        assertTrue(rows.get(2), rows.get(2).startsWith(london + ",2019-06-10,51.51,-0.12,London,"));
+    }
+
+    @Test
+    public void testIncrementalExportStartsAfterTheLastId() throws Exception {
+        JsonNode first = awaitExport(nameOf(startExport("/weather/exports")));
+        int paris = create(mockMvc, weather("2019-06-11", "Paris", 48.86, 2.35, 25));
+
+        String location = startExport("/weather/exports?after=" + first.get("lastId").asInt());
+        JsonNode next = awaitExport(nameOf(location));
+        assertEquals(london, next.get("afterId").asInt());
+        assertEquals(paris, next.get("lastId").asInt());
+        assertEquals(1, next.get("records").asLong());
+        List<String> rows = download(location, next.get("bytes").asLong());
+        assertEquals(2, rows.size());
+        assertTrue(rows.get(1), rows.get(1).startsWith(paris + ","));
+
+        // Nothing since, and the lastId stays for the export after.
+        JsonNode empty = awaitExport(nameOf(startExport("/weather/exports?after=" + paris)));
+        assertEquals(0, empty.get("records").asLong());
+        assertEquals(paris, empty.get("lastId").asInt());
+
+        assertEquals(3, getJson(mockMvc, "/weather/exports").size());
+    }
+
+    @Test
+    public void testFinishedExportsAreListedAfterARestart() throws Exception {
+        JsonNode full = awaitExport(nameOf(startExport("/weather/exports")));
+        JsonNode incremental = awaitExport(nameOf(startExport("/weather/exports?after=" + chicago)));
+        Path directory = Paths.get(DIRECTORY);
+        Files.write(directory.resolve("weather-after-0-1.csv.gz.tmp"), new byte[]{1});
+        Files.write(directory.resolve("weather-after-0-2.csv.gz.properties"), new byte[]{1});
+
+        WeatherExporter restarted = new WeatherExporter(weatherStore, transactionTemplate, new SimpleMeterRegistry(),
+                DIRECTORY);
+        try {
+            List<WeatherExport> exports = restarted.list();
+            assertEquals(2, exports.size());
+            assertExport(full, exports.get(0));
+            assertExport(incremental, exports.get(1));
+            assertEquals(chicago, exports.get(1).getAfterId().intValue());
+            assertFalse(Files.exists(directory.resolve("weather-after-0-1.csv.gz.tmp")));
+            assertFalse(Files.exists(directory.resolve("weather-after-0-2.csv.gz.properties")));
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    public void testUnknownExportIsNotFound() throws Exception {
+        mockMvc.perform(get("/weather/exports/weather-after-0-1.csv.gz")).andExpect(status().isNotFound());
+        assertEquals(0, getJson(mockMvc, "/weather/exports").size());
+    }
+
+    private String startExport(String url) throws Exception {
+        return mockMvc.perform(post(url))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+    }
+
+    private static String nameOf(String location) {
+        return location.substring(location.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * @return the export named {@code name}, as listed once it is done.
+     */
+    private JsonNode awaitExport(String name) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            for (JsonNode export : getJson(mockMvc, "/weather/exports")) {
+                if (export.get("name").asText().equals(name) && !export.get("status").asText().equals("RUNNING")) {
+                    assertEquals("DONE", export.get("status").asText());
+                    return export;
+                }
+            }
+            assertTrue(name + " is still running", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private List<String> download(String location, long bytes) throws Exception {
+        MvcResult result = mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andReturn();
+        byte[] body = result.getResponse().getContentAsByteArray();
+        assertEquals(bytes, body.length);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(body)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    private static void assertExport(JsonNode expected, WeatherExport export) {
+        assertEquals(expected.get("name").asText(), export.getName());
+        assertEquals(WeatherExport.Status.DONE, export.getStatus());
+        assertEquals(expected.get("records").asLong(), export.getRecords().longValue());
+        assertEquals(expected.get("lastId").asInt(), export.getLastId().intValue());
+        assertEquals(expected.get("bytes").asLong(), export.getBytes().longValue());
+    }
+}
@@ -0,0 +1,127 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackerrank.weather.format.WeatherFormat;
+import com.hackerrank.weather.format.WeatherFormatConfiguration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Records sent and received in each {@link WeatherFormat}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherFormatTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WeatherFormatConfiguration formats;
+
+    @Test
+    public void testBinaryFormatsRoundTrip() throws Exception {
+        for (WeatherFormat format : Arrays.asList(WeatherFormat.CBOR, WeatherFormat.SMILE)) {
+            ObjectMapper mapper = formats.getObjectMapper(format);
+            String mediaType = format.getMediaType().toString();
+            byte[] body = mapper.writeValueAsBytes(weather("2019-06-11", "Chicago", 41.88, -87.62, 21.5, -3.25));
+
+            MvcResult created = mockMvc.perform(post("/weather").contentType(mediaType).accept(mediaType).content(body))
+                    .andExpect(status().isCreated())
+                    .andExpect(content().contentTypeCompatibleWith(mediaType))
+                    .andReturn();
+            JsonNode weather = mapper.readTree(created.getResponse().getContentAsByteArray());
+            assertWeather(format, weather);
+
+            JsonNode json = getJson(mockMvc, "/weather/" + weather.get("id").asInt());
+            assertWeather(WeatherFormat.JSON, json);
+
+            MvcResult list = mockMvc.perform(get("/weather").accept(mediaType))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(mediaType))
+                    .andReturn();
+            JsonNode weathers = mapper.readTree(list.getResponse().getContentAsByteArray());
+            assertEquals(weather, weathers.get(weathers.size() - 1));
+
+            MvcResult streamed = performAsync(mockMvc, get("/weather?stream=true").accept(mediaType));
+            assertEquals(weathers, mapper.readTree(streamed.getResponse().getContentAsByteArray()));
+        }
+    }
+
+    @Test
+    public void testPreferredFormatIsNegotiated() throws Exception {
+        create(mockMvc, weather("2019-06-11", "Chicago", 41.88, -87.62, 21));
+
+        mockMvc.perform(get("/weather"))
+                .andExpect(content().contentTypeCompatibleWith("application/json"));
+        mockMvc.perform(get("/weather").header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"));
+        mockMvc.perform(get("/weather").header(HttpHeaders.ACCEPT, "application/cbor, application/*;q=0.1"))
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"));
+        mockMvc.perform(get("/weather").header(HttpHeaders.ACCEPT, "application/cbor;q=0, */*"))
+                .andExpect(content().contentTypeCompatibleWith("application/json"));
+    }
+
+    @Test
+    public void testUnacceptableFormatIsRefused() throws Exception {
+        mockMvc.perform(get("/weather").accept("text/csv")).andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/weather?stream=true").accept("text/csv")).andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/weather").header(HttpHeaders.ACCEPT, "application/json;q=0"))
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/weather").header(HttpHeaders.ACCEPT, "not a media type"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    public void testResponsesVaryByAccept() throws Exception {
+        create(mockMvc, weather("2019-06-11", "Chicago", 41.88, -87.62, 21));
+
+        String json = mockMvc.perform(get("/weather").accept("application/json"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cbor = mockMvc.perform(get("/weather").accept("application/cbor"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(json, cbor);
+
+        // The ETag of one format does not validate another.
+        mockMvc.perform(get("/weather").accept("application/cbor").header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/weather").accept("application/cbor").header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified());
+
+        MvcResult streamed = performAsync(mockMvc, get("/weather?stream=true").accept("application/x-jackson-smile"));
+        assertEquals(Collections.singletonList(HttpHeaders.ACCEPT), streamed.getResponse().getHeaders(HttpHeaders.VARY));
+    }
+
+    private static void assertWeather(WeatherFormat format, JsonNode weather) {
+        assertTrue(format.name(), weather.get("id").asInt() > 0);
+        assertEquals(format.name(), "2019-06-11", weather.get("date").asText());
+        assertEquals(format.name(), "Chicago", weather.get("city").asText());
+        assertEquals(format.name(), 41.88, weather.get("lat").asDouble(), 1e-4);
+        assertEquals(format.name(), 2, weather.get("temperatures").size());
+        assertEquals(format.name(), 21.5, weather.get("temperatures").get(0).asDouble(), 1e-9);
+        assertEquals(format.name(), -3.25, weather.get("temperatures").get(1).asDouble(), 1e-9);
+    }
+}
@@ -0,0 +1,101 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code GET /weather/nearby} and {@code GET /weather/nearest}, with at most three records a response.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "weather.page.max-limit=3")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherGeoTest {
+    private static final String CHICAGO = "lat=41.88&lon=-87.62";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private int chicago;
+    private int evanston;
+    private int milwaukee;
+    private int detroit;
+    private int london;
+    private int chicagoLater;
+
+    @Before
+    public void setUp() throws Exception {
+        chicago = create(mockMvc, weather("2019-06-11", "Chicago", 41.88, -87.62, 21));
+        // About 19 km north of Chicago.
+        evanston = create(mockMvc, weather("2019-06-11", "Evanston", 42.05, -87.68, 20));
+        // About 130 km north.
+        milwaukee = create(mockMvc, weather("2019-06-12", "Milwaukee", 43.04, -87.91, 18));
+        // About 380 km east.
+        detroit = create(mockMvc, weather("2019-06-11", "Detroit", 42.33, -83.05, 24));
+        london = create(mockMvc, weather("2019-06-11", "London", 51.51, -0.12, 11));
+        // Not indexed, though at the same station.
+        create(mockMvc, weather(null, "Chicago", 41.88, -87.62, 19));
+        chicagoLater = create(mockMvc, weather("2019-06-12", "Chicago", 41.88, -87.62, 23));
+    }
+
+    @Test
+    public void testNearbyNearestFirstThenById() throws Exception {
+        assertEquals(Arrays.asList(chicago, chicagoLater, evanston),
+                ids(getJson(mockMvc, "/weather/nearby?" + CHICAGO + "&radiusKm=50")));
+        assertEquals(Arrays.asList(chicagoLater, milwaukee),
+                ids(getJson(mockMvc, "/weather/nearby?" + CHICAGO + "&radiusKm=200&date=2019-06-12")));
+        assertEquals(Collections.emptyList(),
+                ids(getJson(mockMvc, "/weather/nearby?lat=0&lon=0&radiusKm=100")));
+    }
+
+    @Test
+    public void testNearbyKeepsTheNearestWithinTheLimit() throws Exception {
+        assertEquals(Arrays.asList(chicago, chicagoLater, evanston),
+                ids(getJson(mockMvc, "/weather/nearby?" + CHICAGO + "&radiusKm=20000")));
+    }
+
+    @Test
+    public void testNearestWidensUntilFound() throws Exception {
+        assertEquals(Collections.singletonList(chicago), ids(getJson(mockMvc, "/weather/nearest?" + CHICAGO)));
+        assertEquals(Arrays.asList(chicago, evanston, detroit),
+                ids(getJson(mockMvc, "/weather/nearest?" + CHICAGO + "&k=3&date=2019-06-11")));
+        assertEquals(Arrays.asList(london, detroit),
+                ids(getJson(mockMvc, "/weather/nearest?lat=51.5&lon=0&k=2&date=2019-06-11")));
+        // Capped by the page limit.
+        assertEquals(3, getJson(mockMvc, "/weather/nearest?" + CHICAGO + "&k=10").size());
+    }
+
+    @Test
+    public void testSavedRecordsAreFoundAtOnce() throws Exception {
+        int aurora = create(mockMvc, weather("2019-06-13", "Aurora", 41.76, -88.32, 22));
+
+        JsonNode nearest = getJson(mockMvc, "/weather/nearest?" + CHICAGO + "&date=2019-06-13");
+        assertEquals(Collections.singletonList(aurora), ids(nearest));
+        assertEquals("Aurora", nearest.get(0).get("city").asText());
+    }
+
+    @Test
+    public void testInvalidParametersAreRejected() throws Exception {
+        mockMvc.perform(get("/weather/nearby?lat=91&lon=0&radiusKm=10")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/nearby?lat=0&lon=181&radiusKm=10")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/nearby?" + CHICAGO + "&radiusKm=0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/nearby?" + CHICAGO)).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/nearest?" + CHICAGO + "&k=0")).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,123 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherPaginationTest {
+    private static final Pattern NEXT = Pattern.compile("<([^>]+)>; rel=\"next\"");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final List<Integer> ids = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        String[] dates = {"2019-06-12", "2019-06-11", "2019-06-12", "2019-06-10", "2019-06-11"};
+        for (int i = 0; i < dates.length; i++) {
+            ids.add(create(mockMvc, weather(dates[i], "City " + (i % 2), 40, -80, 20 + i)));
+        }
+    }
+
+    @Test
+    public void testPagesFollowNextLinks() throws Exception {
+        assertEquals(ids, readPages("/weather?limit=2", 2));
+    }
+
+    @Test
+    public void testSortedPagesKeepRecordsOfTheSameDate() throws Exception {
+        List<Integer> sorted = ids(getJson(mockMvc, "/weather?sort=-date"));
+        assertEquals(sorted, readPages("/weather?sort=-date&limit=2", 2));
+        assertEquals(ids(getJson(mockMvc, "/weather?sort=date")), readPages("/weather?sort=date&limit=3", 3));
+    }
+
+    @Test
+    public void testLastPageHasNoNextLink() throws Exception {
+        MvcResult result = mockMvc.perform(get("/weather?limit=10")).andExpect(status().isOk()).andReturn();
+        assertEquals(ids, ids(read(result)));
+        assertNull(result.getResponse().getHeader(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void testUndatedRecordsArePaged() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            ids.add(create(mockMvc, weather(null, "City " + i, 40, -80, 30 + i)));
+        }
+
+        assertEquals(ids, readPages("/weather?limit=2", 2));
+        for (String sort : new String[]{"date", "-date"}) {
+            List<Integer> sorted = ids(getJson(mockMvc, "/weather?sort=" + sort));
+            assertEquals(ids.size(), sorted.size());
+            assertEquals(sorted, readPages("/weather?sort=" + sort + "&limit=2", 2));
+        }
+    }
+
+    @Test
+    public void testInvalidPagesAreRejected() throws Exception {
+        mockMvc.perform(get("/weather?limit=2&after=not-a-cursor!")).andExpect(status().isBadRequest());
+        // Base64 of "1234", which has no separator.
+        mockMvc.perform(get("/weather?limit=2&after=MTIzNA")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather?limit=0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather?limit=-1&stream=true")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testStreamReturnsTheSameRecords() throws Exception {
+        for (String query : new String[]{"", "?sort=date", "?city=City%201", "?date=2019-06-11", "?limit=3"}) {
+            JsonNode expected = getJson(mockMvc, "/weather" + query);
+            String separator = query.isEmpty() ? "?" : "&";
+            JsonNode streamed = read(performAsync(mockMvc, get("/weather" + query + separator + "stream=true")));
+            assertEquals(query, expected, streamed);
+        }
+    }
+
+    /**
+     * @return the ids of every page, from the first one at {@code url} through the {@code next} links.
+     */
+    private List<Integer> readPages(String url, int limit) throws Exception {
+        List<Integer> pageIds = new ArrayList<>();
+        URI next = URI.create(url);
+        while (next != null) {
+            MvcResult result = mockMvc.perform(get(next)).andExpect(status().isOk()).andReturn();
+            JsonNode page = read(result);
+            assertTrue(page.size() <= limit);
+            pageIds.addAll(ids(page));
+
+            String link = result.getResponse().getHeader(HttpHeaders.LINK);
+            if (link == null) {
+                next = null;
+            } else {
+                Matcher matcher = NEXT.matcher(link);
+                assertTrue(link, matcher.matches());
+                assertEquals(limit, page.size());
+                next = URI.create(matcher.group(1));
+            }
+        }
+        return pageIds;
+    }
+}
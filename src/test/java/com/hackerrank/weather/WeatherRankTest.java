@@ -0,0 +1,141 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code GET /weather/top} and {@code GET /weather/threshold}, with at most three records a response.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "weather.page.max-limit=3")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherRankTest {
+    private static final Pattern NEXT = Pattern.compile("<([^>]+)>; rel=\"next\"");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /** Daily max 30, min 20, mean 25. */
+    private int chicago;
+    /** Daily max 35, min 10, mean 22.5. */
+    private int chicagoLater;
+    private int london;
+    private int paris;
+    private int oakland;
+
+    @Before
+    public void setUp() throws Exception {
+        chicago = create(mockMvc, weather("2019-06-10", "Chicago", 41.88, -87.62, 20, 30));
+        chicagoLater = create(mockMvc, weather("2019-06-11", "Chicago", 41.88, -87.62, 10, 35));
+        london = create(mockMvc, weather("2019-06-10", "London", 51.51, -0.12, 12, 14));
+        paris = create(mockMvc, weather("2019-06-11", "Paris", 48.86, 2.35, 25));
+        oakland = create(mockMvc, weather("2019-06-12", "Oakland", 37.80, -122.27, 28));
+        // Not ranked, undated.
+        create(mockMvc, weather(null, "Chicago", 41.88, -87.62, 50));
+        // Not ranked, without readings.
+        create(mockMvc, weather("2019-06-12", "Denver", 39.74, -104.99));
+    }
+
+    @Test
+    public void testTopKeepsTheBestRecordOfEachCity() throws Exception {
+        // Capped by the page limit, which leaves London out.
+        assertEquals(Arrays.asList(chicagoLater, oakland, paris), ids(getJson(mockMvc, "/weather/top")));
+        assertEquals(Arrays.asList(chicagoLater, london), ids(getJson(mockMvc, "/weather/top?by=min&order=asc&k=2")));
+        assertEquals(Arrays.asList(chicago, london), ids(getJson(mockMvc, "/weather/top?by=mean&k=2&date=2019-06-10")));
+        assertEquals(Arrays.asList(paris, oakland, chicagoLater),
+                ids(getJson(mockMvc, "/weather/top?order=asc&from=2019-06-11&to=2019-06-12")));
+        assertEquals(Collections.emptyList(), ids(getJson(mockMvc, "/weather/top?from=2019-07-01")));
+    }
+
+    @Test
+    public void testThresholdByDateThenId() throws Exception {
+        assertEquals(Arrays.asList(london, paris, oakland),
+                ids(getJson(mockMvc, "/weather/threshold?above=12&below=30")));
+        assertEquals(Collections.singletonList(chicagoLater), ids(getJson(mockMvc, "/weather/threshold?by=min&below=12")));
+        assertEquals(Arrays.asList(chicagoLater, paris),
+                ids(getJson(mockMvc, "/weather/threshold?by=mean&above=0&date=2019-06-11")));
+        assertEquals(Collections.emptyList(), ids(getJson(mockMvc, "/weather/threshold?above=35")));
+    }
+
+    @Test
+    public void testThresholdPagesFollowNextLinks() throws Exception {
+        List<Integer> all = Arrays.asList(chicago, chicagoLater, paris, oakland);
+
+        assertEquals(all, readPages("/weather/threshold?above=20", 3));
+        assertEquals(all, readPages("/weather/threshold?above=20&limit=2", 2));
+        assertEquals(all, readPages("/weather/threshold?above=20&limit=100", 3));
+        assertEquals(Arrays.asList(chicagoLater, paris, oakland),
+                readPages("/weather/threshold?above=20&from=2019-06-11&limit=1", 1));
+    }
+
+    @Test
+    public void testSavedRecordsAreRankedAtOnce() throws Exception {
+        int hot = create(mockMvc, weather("2019-06-10", "London", 51.51, -0.12, 40));
+        int saved = create(mockMvc, weather("2019-06-09", "Paris", 48.86, 2.35, 24));
+
+        assertEquals(Arrays.asList(hot, chicagoLater, oakland), ids(getJson(mockMvc, "/weather/top")));
+        assertEquals(Arrays.asList(saved, chicago, hot), ids(getJson(mockMvc, "/weather/threshold?above=20")));
+    }
+
+    @Test
+    public void testInvalidParametersAreRejected() throws Exception {
+        mockMvc.perform(get("/weather/top?by=median")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/top?order=up")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/top?k=0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/threshold")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/threshold?above=20&below=20")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/threshold?by=median&above=20")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/threshold?above=20&limit=0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/threshold?above=20&after=@@")).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * @return the ids of every page, from the first one at {@code url} through the {@code next} links.
+     */
+    private List<Integer> readPages(String url, int limit) throws Exception {
+        List<Integer> pageIds = new ArrayList<>();
+        URI next = URI.create(url);
+        while (next != null) {
+            MvcResult result = mockMvc.perform(get(next)).andExpect(status().isOk()).andReturn();
+            JsonNode page = read(result);
+            assertTrue(page.size() <= limit);
+            pageIds.addAll(ids(page));
+
+            String link = result.getResponse().getHeader(HttpHeaders.LINK);
+            if (link == null) {
+                assertTrue(page.size() < limit);
+                next = null;
+            } else {
+                Matcher matcher = NEXT.matcher(link);
+                assertTrue(link, matcher.matches());
+                assertEquals(limit, page.size());
+                next = URI.create(matcher.group(1));
+            }
+        }
+        return pageIds;
+    }
+}
@@ -0,0 +1,173 @@
+package com.hackerrank.weather;
+
+import com.hackerrank.weather.index.WeatherIndexLoader;
+import com.hackerrank.weather.index.WeatherReadModel;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherCursor;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import com.hackerrank.weather.store.WeatherStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+
+/**
+ * The {@link WeatherReadModel} answers every query shape of {@code GET /weather} as the {@link WeatherStore} does.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "weather.read-model.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherReadModelTest {
+    /** With undated records, which the store sorts first by date ascending and last by date descending. */
+    private static final String[] DATES = {"2019-06-12", "2019-06-11", "2019-06-12", "2019-06-10", "2019-06-11",
+            "2019-06-13", "2019-06-10", "2019-06-12", null, null, null};
+    private static final String[] CITIES = {"Chicago", "oakland", "CHICAGO", "London", "Oakland"};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WeatherReadModel readModel;
+
+    @Autowired
+    private WeatherStore weatherStore;
+
+    @Autowired
+    private WeatherIndexLoader indexLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        assertTrue(readModel.isReady());
+        for (int i = 0; i < DATES.length; i++) {
+            create(mockMvc, weather(DATES[i], CITIES[i % CITIES.length], 40, -80, 20 + i));
+        }
+    }
+
+    @Test
+    public void testQueriesMatchTheStore() {
+        for (WeatherQuery query : queries()) {
+            assertSameIds(query);
+        }
+    }
+
+    @Test
+    public void testPagesMatchTheStore() {
+        for (WeatherSort sort : WeatherSort.values()) {
+            WeatherQuery first = new WeatherQuery(null, null, null, sort, null, 3);
+            List<Weather> page = assertSameIds(first);
+            while (page.size() == 3) {
+                WeatherCursor after = WeatherCursor.of(page.get(page.size() - 1));
+                page = assertSameIds(new WeatherQuery(null, null, null, sort, after, 3));
+            }
+        }
+    }
+
+    @Test
+    public void testResponsesMatchTheStore() throws Exception {
+        for (String query : new String[]{"", "?sort=-date", "?city=chicago&city=London", "?date=2019-06-12",
+                "?from=2019-06-11&to=2019-06-12&sort=date"}) {
+            assertEquals(query, idsOf(weatherStore.findAll(parse(query))), ids(getJson(mockMvc, "/weather" + query)));
+        }
+    }
+
+    @Test
+    public void testLoadSeesRecordsSavedBeforeStartup() {
+        // Saved behind the service, as records already in the store at startup are.
+        Weather weather = new Weather();
+        weather.setDate(Date.from(LocalDate.of(2019, 6, 14).atStartOfDay(ZoneId.of(Weather.TIME_ZONE)).toInstant()));
+        weather.setLat(39.74f);
+        weather.setLon(-104.99f);
+        weather.setCity("Denver");
+        weather.setState("N/A");
+        weather.setTemperatures(new double[]{30});
+        int id = weatherStore.save(weather).getId();
+        assertFalse(readModel.findById(id).isPresent());
+
+        indexLoader.load();
+
+        assertTrue(readModel.findById(id).isPresent());
+        for (WeatherQuery query : queries()) {
+            assertSameIds(query);
+        }
+    }
+
+    private List<Weather> assertSameIds(WeatherQuery query) {
+        List<Weather> found = readModel.find(query);
+        assertEquals(idsOf(weatherStore.findAll(query)), idsOf(found));
+        return found;
+    }
+
+    private static List<WeatherQuery> queries() {
+        LocalDate june11 = LocalDate.of(2019, 6, 11);
+        LocalDate june12 = LocalDate.of(2019, 6, 12);
+        List<WeatherQuery> queries = new ArrayList<>();
+        for (WeatherSort sort : WeatherSort.values()) {
+            queries.add(new WeatherQuery(null, null, null, sort, null, null));
+            queries.add(new WeatherQuery(june12, june12, null, sort, null, null));
+            queries.add(new WeatherQuery(june11, null, null, sort, null, null));
+            queries.add(new WeatherQuery(null, june11, null, sort, null, null));
+            queries.add(new WeatherQuery(null, null, Collections.singletonList("chicago"), sort, null, null));
+            queries.add(new WeatherQuery(june11, june12, Arrays.asList("Oakland", "LONDON"), sort, null, null));
+            queries.add(new WeatherQuery(null, null, Collections.singletonList("Paris"), sort, null, null));
+            queries.add(new WeatherQuery(null, null, null, sort, null, 2));
+        }
+        return queries;
+    }
+
+    /**
+     * @return the query of the given {@code GET /weather} parameters, which are all single-valued but {@code city}.
+     */
+    private static WeatherQuery parse(String parameters) {
+        LocalDate from = null;
+        LocalDate to = null;
+        List<String> cities = null;
+        String sort = null;
+        for (String parameter : parameters.replaceFirst("^\\?", "").split("&")) {
+            String[] pair = parameter.split("=", 2);
+            switch (pair[0]) {
+                case "date":
+                    from = to = LocalDate.parse(pair[1]);
+                    break;
+                case "from":
+                    from = LocalDate.parse(pair[1]);
+                    break;
+                case "to":
+                    to = LocalDate.parse(pair[1]);
+                    break;
+                case "city":
+                    cities = cities == null ? new ArrayList<>() : cities;
+                    cities.add(pair[1]);
+                    break;
+                case "sort":
+                    sort = pair[1];
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new WeatherQuery(from, to, cities, WeatherSort.fromParameter(sort), null, null);
+    }
+
+    private static List<Integer> idsOf(List<Weather> weathers) {
+        return weathers.stream().map(Weather::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,76 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Builds weather bodies as JSON, so that their dates do not depend on the time zone of the tests, and sends them.
+ */
+final class WeatherRequests {
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private WeatherRequests() {
+    }
+
+    static ObjectNode weather(String date, String city, double lat, double lon, double... temperatures) {
+        ObjectNode weather = OBJECT_MAPPER.createObjectNode();
+        if (date != null) {
+            weather.put("date", date);
+        }
+        weather.put("lat", lat);
+        weather.put("lon", lon);
+        weather.put("city", city);
+        weather.put("state", "N/A");
+        ArrayNode readings = weather.putArray("temperatures");
+        for (double temperature : temperatures) {
+            readings.add(temperature);
+        }
+        return weather;
+    }
+
+    /**
+     * @return the id of the created weather.
+     */
+    static int create(MockMvc mockMvc, JsonNode weather) throws Exception {
+        String body = mockMvc.perform(post("/weather").contentType("application/json").content(weather.toString()))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return OBJECT_MAPPER.readTree(body).get("id").asInt();
+    }
+
+    static JsonNode getJson(MockMvc mockMvc, String url) throws Exception {
+        return read(mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn());
+    }
+
+    /**
+     * Performs a request answered asynchronously, such as a streamed response, and waits for its result.
+     */
+    static MvcResult performAsync(MockMvc mockMvc, RequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andReturn();
+    }
+
+    static JsonNode read(MvcResult result) throws Exception {
+        return OBJECT_MAPPER.readTree(result.getResponse().getContentAsByteArray());
+    }
+
+    static List<Integer> ids(JsonNode weathers) {
+        List<Integer> ids = new ArrayList<>();
+        weathers.forEach(weather -> ids.add(weather.get("id").asInt()));
+        return ids;
+    }
+}
@@ -0,0 +1,92 @@
+package com.hackerrank.weather;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherResponseCacheTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private int firstId;
+
+    @Before
+    public void setUp() throws Exception {
+        firstId = create(mockMvc, weather("2019-06-11", "Chicago", 41.88, -87.62, 21));
+    }
+
+    @Test
+    public void testMatchingETagIsNotModified() throws Exception {
+        String eTag = getETag("/weather");
+
+        MvcResult result = mockMvc.perform(get("/weather").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals(eTag, result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(0, result.getResponse().getContentLength());
+
+        mockMvc.perform(get("/weather").header(HttpHeaders.IF_NONE_MATCH, "\"0stale\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testRepeatedQueriesAreServedFromTheCache() throws Exception {
+        double hits = hits();
+        String eTag = getETag("/weather?city=Chicago");
+
+        assertEquals(eTag, getETag("/weather?city=chicago"));
+        assertEquals(hits + 1, hits(), 0);
+        // Another query is cached apart, under its own tag.
+        assertNotEquals(eTag, getETag("/weather?city=Oakland"));
+        assertEquals(hits + 1, hits(), 0);
+    }
+
+    @Test
+    public void testWriteInvalidatesCachedResponses() throws Exception {
+        String eTag = getETag("/weather");
+        String cityETag = getETag("/weather?city=Chicago");
+
+        int secondId = create(mockMvc, weather("2019-06-12", "Chicago", 41.88, -87.62, 25));
+
+        MvcResult result = mockMvc.perform(get("/weather").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(Arrays.asList(firstId, secondId), ids(read(result)));
+        assertNotEquals(cityETag, getETag("/weather?city=Chicago"));
+    }
+
+    private String getETag(String url) throws Exception {
+        String eTag = mockMvc.perform(get(url)).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(url, eTag);
+        return eTag;
+    }
+
+    private double hits() {
+        return meterRegistry.get("weather.cache.hits").counter().count();
+    }
+}
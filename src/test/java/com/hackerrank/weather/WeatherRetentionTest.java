@@ -0,0 +1,123 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import com.hackerrank.weather.service.WeatherService;
+import com.hackerrank.weather.store.WeatherStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Dropping the records of the days before a horizon from the {@code jpa} store, two rows a delete, and from the
+ * read model, indexes and response cache that {@code WeatherDroppedEvent} invalidates.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"weather.batch.size=2", "weather.read-model.enabled=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherRetentionTest {
+    private static final LocalDate HORIZON = LocalDate.of(2019, 6, 1);
+    private static final String CHICAGO = "lat=41.88&lon=-87.62";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @Autowired
+    private WeatherStore weatherStore;
+
+    private final List<Integer> dropped = new ArrayList<>();
+    private final List<Integer> kept = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        dropped.add(create(mockMvc, weather("2019-05-01", "Chicago", 41.88, -87.62, 35)));
+        dropped.add(create(mockMvc, weather("2019-05-15", "Chicago", 41.88, -87.62, 30)));
+        dropped.add(create(mockMvc, weather("2019-05-31", "Evanston", 42.05, -87.68, 32)));
+        dropped.add(create(mockMvc, weather("2019-05-31", "London", 51.51, -0.12, 11)));
+        kept.add(create(mockMvc, weather("2019-06-01", "Chicago", 41.88, -87.62, 21)));
+        kept.add(create(mockMvc, weather("2019-06-02", "Evanston", 42.05, -87.68, 20)));
+    }
+
+    @Test
+    public void testDroppedRecordsAreDeletedFromTheStore() {
+        assertEquals(dropped.size(), weatherService.dropBefore(HORIZON));
+
+        List<Integer> stored = weatherStore.findAll(new WeatherQuery(null, null, null, WeatherSort.ID, null, null))
+                .stream().map(Weather::getId).collect(Collectors.toList());
+        assertEquals(kept, stored);
+        dropped.forEach(id -> assertFalse(weatherStore.findById(id).isPresent()));
+        assertEquals(0, weatherService.dropBefore(HORIZON));
+    }
+
+    @Test
+    public void testDroppedRecordsLeaveTheIndexesAndCache() throws Exception {
+        List<Integer> all = new ArrayList<>(dropped);
+        all.addAll(kept);
+        // Cached and indexed before the drop.
+        assertEquals(all, ids(getJson(mockMvc, "/weather")));
+        assertEquals(6, getJson(mockMvc, "/weather/stats").size());
+        assertEquals(Arrays.asList(dropped.get(0), dropped.get(1), kept.get(0), dropped.get(2), kept.get(1)),
+                ids(getJson(mockMvc, "/weather/nearby?" + CHICAGO + "&radiusKm=50")));
+        assertEquals(Arrays.asList(dropped.get(0), dropped.get(2), dropped.get(3)),
+                ids(getJson(mockMvc, "/weather/top?by=max&k=3")));
+
+        weatherService.dropBefore(HORIZON);
+
+        assertEquals(kept, ids(getJson(mockMvc, "/weather")));
+        assertEquals(kept, ids(getJson(mockMvc, "/weather?city=chicago&city=evanston&city=london")));
+        JsonNode stats = getJson(mockMvc, "/weather/stats");
+        assertEquals(2, stats.size());
+        assertEquals("2019-06-01", stats.get(0).get("start").asText());
+        assertEquals(kept, ids(getJson(mockMvc, "/weather/nearby?" + CHICAGO + "&radiusKm=50")));
+        assertEquals(Arrays.asList(kept.get(0), kept.get(1)), ids(getJson(mockMvc, "/weather/top?by=max&k=3")));
+        assertEquals(kept, ids(getJson(mockMvc, "/weather/threshold?by=max&above=0")));
+        mockMvc.perform(get("/weather/" + dropped.get(0))).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testRecordsOfDroppedDaysAreRefused() throws Exception {
+        weatherService.dropBefore(HORIZON);
+
+        mockMvc.perform(post("/weather").contentType("application/json")
+                .content(weather("2019-05-31", "Chicago", 41.88, -87.62, 25).toString()))
+                .andExpect(status().isBadRequest());
+        int saved = create(mockMvc, weather("2019-06-01", "Chicago", 41.88, -87.62, 25));
+
+        String batch = "[" + weather("2019-06-03", "Chicago", 41.88, -87.62, 22) + ","
+                + weather("2019-05-20", "Chicago", 41.88, -87.62, 23) + "]";
+        JsonNode results = OBJECT_MAPPER.readTree(mockMvc.perform(post("/weather/batch")
+                .contentType("application/json").content(batch))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        assertTrue(results.get(0).has("id"));
+        assertTrue(results.get(1).get("error").asText().contains("2019-06-01"));
+
+        List<Integer> expected = new ArrayList<>(kept);
+        expected.add(saved);
+        expected.add(results.get(0).get("id").asInt());
+        assertEquals(expected, ids(getJson(mockMvc, "/weather")));
+    }
+}
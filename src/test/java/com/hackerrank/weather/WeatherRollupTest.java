@@ -0,0 +1,166 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.service.WeatherRollup;
+import com.hackerrank.weather.service.WeatherSavedEvent;
+import com.hackerrank.weather.service.WeatherService;
+import com.hackerrank.weather.store.WeatherStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Downsampling by a {@link WeatherRollup} built here, two records a page, so that no background run races the tests,
+ * over a store that can be made to save a record while a page is being downsampled.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherRollupTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @SpyBean
+    private WeatherStore weatherStore;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WeatherRollup rollup;
+
+    @After
+    public void tearDown() {
+        if (rollup != null) {
+            rollup.stop();
+        }
+    }
+
+    @Test
+    public void testRecordsBeforeTheDayAreDownsampled() throws Exception {
+        int first = create(mockMvc, weather("2019-06-10", "Chicago", 41.88, -87.62, 10, 20, 30));
+        int second = create(mockMvc, weather("2019-06-10", "London", 51.51, -0.12, 12));
+        int third = create(mockMvc, weather("2019-06-11", "Chicago", 41.88, -87.62, -5, 5));
+        int kept = create(mockMvc, weather("2019-06-12", "Chicago", 41.88, -87.62, 22));
+        JsonNode stats = getJson(mockMvc, "/weather/stats");
+        rollup = new WeatherRollup(weatherService, weatherStore, meterRegistry, 0, 60, 2);
+
+        assertEquals(3, rollup.rollUpBefore(LocalDate.of(2019, 6, 12)));
+
+        assertRollup(first, 10, 30, 20, 3);
+        assertRollup(second, 12, 12, 12, 1);
+        assertRollup(third, -5, 5, 0, 2);
+        JsonNode weather = getJson(mockMvc, "/weather/" + kept);
+        assertEquals(1, weather.get("temperatures").size());
+        assertFalse(weather.has("rollup"));
+        assertEquals(stats, getJson(mockMvc, "/weather/stats"));
+        assertEquals(3, meterRegistry.get("weather.rollup.records").counter().count(), 0);
+        // Days already downsampled are not read again.
+        assertEquals(0, rollup.rollUpBefore(LocalDate.of(2019, 6, 12)));
+    }
+
+    @Test
+    public void testRecordSavedSinceReadIsDownsampledFromItsNewReadings() throws Exception {
+        int id = create(mockMvc, weather("2019-06-10", "Chicago", 41.88, -87.62, 10, 20));
+        // Saves a new version of the record right after the page that holds it is read.
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            Object page = invocation.callRealMethod();
+            if (first.getAndSet(false)) {
+                Date date = Date.from(LocalDate.of(2019, 6, 10).atStartOfDay(ZoneId.of(Weather.TIME_ZONE)).toInstant());
+                weatherService.save(new Weather(id, date, 41.88f, -87.62f, "Chicago", "Illinois",
+                        Arrays.asList(40.0, 50.0, 60.0)));
+            }
+            return page;
+        }).when(weatherStore).findAll(any());
+        rollup = new WeatherRollup(weatherService, weatherStore, meterRegistry, 0, 60, 2);
+
+        assertEquals(1, rollup.rollUpBefore(LocalDate.of(2019, 6, 11)));
+
+        JsonNode weather = assertRollup(id, 40, 60, 50, 3);
+        assertEquals("Illinois", weather.get("state").asText());
+    }
+
+    @Test
+    public void testLateRecordIsDownsampledWhenSaved() throws Exception {
+        rollup = new WeatherRollup(weatherService, weatherStore, meterRegistry, 0, 60, 2);
+        rollup.rollUpBefore(LocalDate.of(2019, 6, 12));
+        int late = create(mockMvc, weather("2019-06-01", "Chicago", 41.88, -87.62, 1, 3));
+        int recent = create(mockMvc, weather("2019-06-12", "Chicago", 41.88, -87.62, 5));
+
+        // The listener of the rollup bean, which this one is not.
+        rollup.onWeatherSaved(new WeatherSavedEvent(weatherStore.findAllById(Arrays.asList(late, recent))));
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!getJson(mockMvc, "/weather/" + late).has("rollup") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertRollup(late, 1, 3, 2, 2);
+        assertFalse(getJson(mockMvc, "/weather/" + recent).has("rollup"));
+    }
+
+    @Test
+    public void testRollupOfRequestBodiesIsIgnored() throws Exception {
+        ObjectNode forged = weather("2019-06-10", "Chicago", 41.88, -87.62, 10);
+        forged.putObject("rollup").put("min", -100).put("max", 100).put("mean", 0).put("count", 1000);
+        ObjectNode withoutReadings = weather("2019-06-10", "Chicago", 41.88, -87.62);
+        withoutReadings.remove("temperatures");
+        withoutReadings.putObject("rollup").put("min", 1).put("max", 2).put("mean", 1.5).put("count", 2);
+
+        mockMvc.perform(post("/weather").contentType("application/json").content(forged.toString()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.rollup").doesNotExist());
+        mockMvc.perform(post("/weather").contentType("application/json").content(withoutReadings.toString()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.rollup").doesNotExist());
+        JsonNode results = OBJECT_MAPPER.readTree(mockMvc.perform(post("/weather/batch")
+                .contentType("application/json").content("[" + forged + "]"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        assertTrue(results.get(0).has("id"));
+
+        for (JsonNode weather : getJson(mockMvc, "/weather")) {
+            assertFalse(weather.has("rollup"));
+        }
+        JsonNode stats = getJson(mockMvc, "/weather/stats").get(0);
+        assertEquals(10, stats.get("min").asDouble(), 0);
+        assertEquals(2, stats.get("count").asLong());
+    }
+
+    private JsonNode assertRollup(int id, double min, double max, double mean, int count) throws Exception {
+        JsonNode weather = getJson(mockMvc, "/weather/" + id);
+        assertTrue(weather.get("temperatures").isNull());
+        JsonNode rollup = weather.get("rollup");
+        assertEquals(min, rollup.get("min").asDouble(), 1e-9);
+        assertEquals(max, rollup.get("max").asDouble(), 1e-9);
+        assertEquals(mean, rollup.get("mean").asDouble(), 1e-9);
+        assertEquals(count, rollup.get("count").asInt());
+        return weather;
+    }
+}
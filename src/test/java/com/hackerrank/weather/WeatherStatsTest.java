@@ -0,0 +1,100 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherStatsTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() throws Exception {
+        // 2019-06-09 is a Sunday, 2019-06-10 a Monday.
+        create(mockMvc, weather("2019-06-09", "Chicago", 41.88, -87.62, 10, 20));
+        create(mockMvc, weather("2019-06-10", "Chicago", 41.88, -87.62, 30));
+        create(mockMvc, weather("2019-06-10", "chicago", 41.88, -87.62, 0, 40, 50));
+        create(mockMvc, weather("2019-07-01", "Chicago", 41.88, -87.62, 25));
+        create(mockMvc, weather("2019-06-10", "London", 51.51, -0.12, 12));
+        create(mockMvc, weather("2019-06-11", "Paris", 48.86, 2.35));
+    }
+
+    @Test
+    public void testDailyStatsByCityThenDay() throws Exception {
+        JsonNode stats = getJson(mockMvc, "/weather/stats");
+
+        assertEquals(4, stats.size());
+        assertStats(stats.get(0), "Chicago", "2019-06-09", 10, 20, 15, 2);
+        assertStats(stats.get(1), "Chicago", "2019-06-10", 0, 50, 30, 4);
+        assertStats(stats.get(2), "Chicago", "2019-07-01", 25, 25, 25, 1);
+        assertStats(stats.get(3), "London", "2019-06-10", 12, 12, 12, 1);
+    }
+
+    @Test
+    public void testWeeksAndMonths() throws Exception {
+        JsonNode weeks = getJson(mockMvc, "/weather/stats?bucket=week&city=CHICAGO");
+        assertEquals(3, weeks.size());
+        assertStats(weeks.get(0), "Chicago", "2019-06-03", 10, 20, 15, 2);
+        assertStats(weeks.get(1), "Chicago", "2019-06-10", 0, 50, 30, 4);
+        assertStats(weeks.get(2), "Chicago", "2019-07-01", 25, 25, 25, 1);
+
+        JsonNode months = getJson(mockMvc, "/weather/stats?bucket=Month&city=chicago");
+        assertEquals(2, months.size());
+        assertStats(months.get(0), "Chicago", "2019-06-01", 0, 50, 25, 6);
+        assertStats(months.get(1), "Chicago", "2019-07-01", 25, 25, 25, 1);
+    }
+
+    @Test
+    public void testRangeReportsOverlappingBuckets() throws Exception {
+        JsonNode days = getJson(mockMvc, "/weather/stats?from=2019-06-10&to=2019-06-30");
+        assertEquals(2, days.size());
+        assertStats(days.get(0), "Chicago", "2019-06-10", 0, 50, 30, 4);
+        assertStats(days.get(1), "London", "2019-06-10", 12, 12, 12, 1);
+
+        // The week of 2019-06-03 overlaps the range by its Sunday.
+        JsonNode weeks = getJson(mockMvc, "/weather/stats?bucket=week&city=Chicago&from=2019-06-09&to=2019-06-09");
+        assertEquals(1, weeks.size());
+        assertStats(weeks.get(0), "Chicago", "2019-06-03", 10, 20, 15, 2);
+
+        assertEquals(0, getJson(mockMvc, "/weather/stats?city=Oakland").size());
+    }
+
+    @Test
+    public void testSavedRecordsAreCountedAtOnce() throws Exception {
+        create(mockMvc, weather("2019-06-10", "London", 51.51, -0.12, 14));
+
+        JsonNode stats = getJson(mockMvc, "/weather/stats?city=London");
+        assertStats(stats.get(0), "London", "2019-06-10", 12, 14, 13, 2);
+    }
+
+    @Test
+    public void testUnknownBucketIsRejected() throws Exception {
+        mockMvc.perform(get("/weather/stats?bucket=year")).andExpect(status().isBadRequest());
+    }
+
+    private static void assertStats(JsonNode stats, String city, String start, double min, double max, double mean,
+                                    long count) {
+        assertEquals(city, stats.get("city").asText());
+        assertEquals(start, stats.get("start").asText());
+        assertEquals(min, stats.get("min").asDouble(), 1e-9);
+        assertEquals(max, stats.get("max").asDouble(), 1e-9);
+        assertEquals(mean, stats.get("mean").asDouble(), 1e-9);
+        assertEquals(count, stats.get("count").asLong());
+    }
+}
@@ -0,0 +1,186 @@
+package com.hackerrank.weather;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hackerrank.weather.service.WeatherService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hackerrank.weather.WeatherRequests.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code POST /weather} through the write-behind queue, which holds three records, and whose first insert can be
+ * held back to fill it.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"weather.ingest.async.enabled=true", "weather.ingest.queue-capacity=3"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public class WeatherWriteBehindTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private WeatherService weatherService;
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        released.countDown();
+    }
+
+    @Test
+    public void testQueuedRecordIsAcceptedThenInserted() throws Exception {
+        ObjectNode chicago = weather("2019-06-11", "Chicago", 41.88, -87.62, 21);
+        // Ignored: ids only come from the sequence.
+        chicago.put("id", -5);
+
+        int id = accept(chicago);
+
+        assertTrue(id > 0);
+        JsonNode weather = getJson(mockMvc, "/weather/" + id);
+        assertEquals("Chicago", weather.get("city").asText());
+        assertEquals(Collections.singletonList(id), awaitIds(1));
+    }
+
+    @Test
+    public void testFullQueueIsRefused() throws Exception {
+        holdFirstInsert();
+        int first = accept(weather("2019-06-11", "Chicago", 41.88, -87.62, 21));
+        int second = accept(weather("2019-06-12", "Chicago", 41.88, -87.62, 22));
+        int third = accept(weather("2019-06-13", "Chicago", 41.88, -87.62, 23));
+
+        postWeather(weather("2019-06-14", "Chicago", 41.88, -87.62, 24))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        assertEquals(1, meterRegistry.get("weather.ingest.rejected").counter().count(), 0);
+
+        released.countDown();
+        assertEquals(Arrays.asList(first, second, third), awaitIds(3));
+        int fourth = accept(weather("2019-06-14", "Chicago", 41.88, -87.62, 24));
+        assertEquals(Arrays.asList(first, second, third, fourth), awaitIds(4));
+    }
+
+    @Test
+    public void testFailedBatchKeepsItsGoodRecords() throws Exception {
+        holdFirstInsert();
+        int first = accept(weather("2019-06-11", "Chicago", 41.88, -87.62, 21));
+        // Queued behind the first insert, then inserted together, which fails on the long city.
+        String longCity = String.join("", Collections.nCopies(300, "x"));
+        accept(weather("2019-06-12", longCity, 41.88, -87.62, 22));
+        int third = accept(weather("2019-06-13", "Oakland", 37.80, -122.27, 28));
+
+        released.countDown();
+        assertEquals(Arrays.asList(first, third), awaitIds(2));
+        assertEquals(1, awaitDropped(1), 0);
+
+        int fourth = accept(weather("2019-06-14", "London", 51.51, -0.12, 11));
+        assertEquals(Arrays.asList(first, third, fourth), awaitIds(3));
+    }
+
+    @Test
+    public void testRecordRefusedByTheStoreIsDroppedAndCounted() throws Exception {
+        weatherService.dropBefore(LocalDate.of(2019, 6, 1));
+        holdFirstInsert();
+        int first = accept(weather("2019-06-11", "Chicago", 41.88, -87.62, 21));
+        // Accepted, then refused by the store: its day was dropped.
+        int refused = accept(weather("2019-05-20", "Chicago", 41.88, -87.62, 22));
+        int third = accept(weather("2019-06-13", "Oakland", 37.80, -122.27, 28));
+
+        released.countDown();
+        assertEquals(Arrays.asList(first, third), awaitIds(2));
+        assertEquals(1, awaitDropped(1), 0);
+        // Found among the queued records until its batch is done.
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (mockMvc.perform(get("/weather/" + refused)).andReturn().getResponse().getStatus() != 404
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        mockMvc.perform(get("/weather/" + refused)).andExpect(status().isNotFound());
+    }
+
+    /**
+     * Makes the first insert wait for {@link #released}, so that the records posted meanwhile stay queued.
+     */
+    private void holdFirstInsert() {
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (first.getAndSet(false)) {
+                assertTrue(released.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            }
+            return invocation.callRealMethod();
+        }).when(weatherService).insertAll(anyList());
+    }
+
+    private ResultActions postWeather(JsonNode weather) throws Exception {
+        return mockMvc.perform(post("/weather").contentType("application/json").content(weather.toString()));
+    }
+
+    /**
+     * @return the id of the queued weather.
+     */
+    private int accept(JsonNode weather) throws Exception {
+        String body = postWeather(weather).andExpect(status().isAccepted()).andReturn().getResponse().getContentAsString();
+        return OBJECT_MAPPER.readTree(body).get("id").asInt();
+    }
+
+    /**
+     * @return the ids of the inserted records, once there are {@code count} of them.
+     */
+    private List<Integer> awaitIds(int count) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        List<Integer> ids = ids(getJson(mockMvc, "/weather"));
+        while (ids.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            ids = ids(getJson(mockMvc, "/weather"));
+        }
+        return ids;
+    }
+
+    /**
+     * @return the number of dropped records, once there are {@code count} of them.
+     */
+    private double awaitDropped(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (dropped() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return dropped();
+    }
+
+    private double dropped() {
+        return meterRegistry.get("weather.ingest.dropped").counter().count();
+    }
+}
@@ -0,0 +1,85 @@
+package com.hackerrank.weather.admission;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveLimitTest {
+    private static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FAST = LATENCY_NANOS / 2;
+    private static final long SLOW = LATENCY_NANOS * 2;
+
+    /** Later than the creation of any limit of the test, so that it may be lowered at once. */
+    private final long now = System.nanoTime() + LATENCY_NANOS;
+
+    @Test
+    public void testRequestsOverTheLimitAreRefused() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, LATENCY_NANOS);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+
+        limit.release(FAST, now);
+        assertEquals(1, limit.getInFlight());
+        assertTrue(limit.tryAcquire());
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void testSlowRequestsLowerTheLimitOncePerLatency() {
+        AdaptiveLimit limit = new AdaptiveLimit(20, LATENCY_NANOS);
+        acquire(limit, 3);
+
+        limit.release(SLOW, now);
+        assertEquals(18, limit.getLimit());
+        // Admitted before it was lowered, and slowed by the same overload.
+        limit.release(SLOW, now + LATENCY_NANOS);
+        assertEquals(18, limit.getLimit());
+        limit.release(SLOW, now + LATENCY_NANOS + 1);
+        assertEquals(16, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    public void testFastRequestsRaiseTheLimitWhenHalfUsed() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, LATENCY_NANOS);
+        acquire(limit, 1);
+        limit.release(SLOW, now);
+        assertEquals(9, limit.getLimit());
+
+        // One request in flight of 9: the limit was not needed.
+        acquire(limit, 1);
+        limit.release(FAST, now);
+        assertEquals(9, limit.getLimit());
+
+        acquire(limit, 5);
+        limit.release(FAST, now);
+        assertEquals(10, limit.getLimit());
+        // Never over its maximum.
+        acquire(limit, 4);
+        limit.release(FAST, now);
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    public void testLimitStaysAtLeastOne() {
+        AdaptiveLimit limit = new AdaptiveLimit(1, LATENCY_NANOS);
+        for (int i = 0; i < 3; i++) {
+            acquire(limit, 1);
+            limit.release(SLOW, now + i * SLOW);
+        }
+
+        assertEquals(1, limit.getLimit());
+        assertTrue(limit.tryAcquire());
+    }
+
+    private static void acquire(AdaptiveLimit limit, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.hackerrank.weather.admission;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.Assert.*;
+
+public class RequestClassTest {
+    @Test
+    public void testRequestsAreClassedByCost() {
+        assertEquals(RequestClass.UNFILTERED, of("GET", "/weather"));
+        assertEquals(RequestClass.FILTERED, of("GET", "/weather?city=chicago"));
+        assertEquals(RequestClass.FILTERED, of("GET", "/weather/stats"));
+        assertEquals(RequestClass.FILTERED, of("GET", "/weather/exports"));
+        assertEquals(RequestClass.BY_ID, of("HEAD", "/weather/12"));
+        assertEquals(RequestClass.WRITE, of("POST", "/weather"));
+        assertEquals(RequestClass.WRITE, of("DELETE", "/weather/12"));
+    }
+
+    @Test
+    public void testBatchesAndExportsAreBulk() {
+        assertEquals(RequestClass.BULK, of("POST", "/weather/batch"));
+        assertEquals(RequestClass.BULK, of("POST", "/weather/exports"));
+        assertEquals(RequestClass.BULK, of("POST", "/weather/exports/?after=12"));
+        assertEquals(RequestClass.BULK.getCost(), RequestClass.UNFILTERED.getCost());
+        assertEquals(RequestClass.WRITE, of("DELETE", "/weather/exports"));
+    }
+
+    private static RequestClass of(String method, String url) {
+        int query = url.indexOf('?');
+        MockHttpServletRequest request = new MockHttpServletRequest(method, query < 0 ? url : url.substring(0, query));
+        if (query >= 0) {
+            request.setQueryString(url.substring(query + 1));
+            for (String parameter : url.substring(query + 1).split("&")) {
+                String[] pair = parameter.split("=", 2);
+                request.addParameter(pair[0], pair[1]);
+            }
+        }
+        return RequestClass.of(request);
+    }
+}
@@ -0,0 +1,52 @@
+package com.hackerrank.weather.admission;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** 10 tokens per second, up to 5. */
+    private final TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+    @Test
+    public void testBurstIsTakenAtOnce() {
+        assertEquals(0, bucket.tryTake(2, 0));
+        assertEquals(0, bucket.tryTake(3, 0));
+
+        assertEquals(SECOND / 10, bucket.tryTake(1, 0), 1);
+        assertEquals(SECOND * 2 / 10, bucket.tryTake(2, 0), 1);
+    }
+
+    @Test
+    public void testTokensRefillAtTheRate() {
+        assertEquals(0, bucket.tryTake(5, 0));
+
+        // Half a token after 50 ms.
+        assertEquals(SECOND / 20, bucket.tryTake(1, SECOND / 20), 1);
+        assertEquals(0, bucket.tryTake(1, SECOND * 15 / 100));
+        assertEquals(0, bucket.tryTake(3, SECOND * 45 / 100));
+    }
+
+    @Test
+    public void testRefillStopsAtTheBurst() {
+        assertEquals(0, bucket.tryTake(5, 0));
+        assertFalse(bucket.isFull(SECOND / 10));
+
+        assertTrue(bucket.isFull(10 * SECOND));
+        assertEquals(0, bucket.tryTake(5, 10 * SECOND));
+        assertTrue(bucket.tryTake(1, 10 * SECOND) > 0);
+    }
+
+    @Test
+    public void testOlderTimeIsIgnored() {
+        assertEquals(0, bucket.tryTake(5, SECOND));
+
+        // Read by a concurrent caller before the last refill.
+        assertEquals(SECOND / 10, bucket.tryTake(1, SECOND / 2), 1);
+        assertEquals(0, bucket.tryTake(1, SECOND + SECOND / 5));
+    }
+}
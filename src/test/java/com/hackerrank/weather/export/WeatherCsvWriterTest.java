@@ -0,0 +1,90 @@
+package com.hackerrank.weather.export;
+
+import com.hackerrank.weather.model.TemperatureRollup;
+import com.hackerrank.weather.model.Weather;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WeatherCsvWriterTest {
+    private static final Date DATE = Date.from(LocalDate.of(2019, 6, 11)
+            .atStartOfDay(ZoneId.of(Weather.TIME_ZONE)).toInstant());
+    /** The empty cells of a record without rollup or readings: four rollup cells, 24 hourly ones and {@code more}. */
+    private static final String EMPTY = String.join("", Collections.nCopies(4 + 24 + 1, ","));
+
+    private final StringWriter out = new StringWriter();
+    private final WeatherCsvWriter csv = new WeatherCsvWriter(out);
+
+    @Test
+    public void testHeaderNamesEveryColumn() throws IOException {
+        csv.writeHeader();
+
+        String[] columns = out.toString().split(",", -1);
+        assertEquals(6 + 4 + WeatherCsvWriter.TEMPERATURE_COLUMNS + 1, columns.length);
+        assertEquals("id", columns[0]);
+        assertEquals("rollup_min", columns[6]);
+        assertEquals("t00", columns[10]);
+        assertEquals("t23", columns[33]);
+        assertEquals("more\n", columns[34]);
+    }
+
+    @Test
+    public void testTextWithSeparatorsIsQuoted() throws IOException {
+        csv.write(new Weather(1, DATE, 41.88f, -87.62f, "Chicago, IL", "Il \"Land\" of Lincoln", null));
+        csv.write(new Weather(2, DATE, 41.88f, -87.62f, "Two\nLines", "Carriage\rReturn", null));
+        csv.write(new Weather(3, null, null, null, null, "Plain", null));
+
+        assertEquals("1,2019-06-11,41.88,-87.62,\"Chicago, IL\",\"Il \"\"Land\"\" of Lincoln\"" + EMPTY + "\n"
+                        + "2,2019-06-11,41.88,-87.62,\"Two\nLines\",\"Carriage\rReturn\"" + EMPTY + "\n"
+                        + "3,,,,,Plain" + EMPTY + "\n",
+                out.toString());
+    }
+
+    @Test
+    public void testReadingsPastTheHourlyColumnsGoInMore() throws IOException {
+        List<Double> readings = new ArrayList<>();
+        for (int hour = 0; hour < WeatherCsvWriter.TEMPERATURE_COLUMNS + 3; hour++) {
+            readings.add(hour + 0.5);
+        }
+        csv.write(new Weather(1, DATE, 41.88f, -87.62f, "Chicago", "Illinois", readings));
+        csv.write(new Weather(2, DATE, 41.88f, -87.62f, "Chicago", "Illinois", Arrays.asList(-1.25, 3.0)));
+
+        String[] rows = out.toString().split("\n");
+        String[] full = rows[0].split(",", -1);
+        assertEquals(35, full.length);
+        assertEquals("0.5", full[10]);
+        assertEquals("23.5", full[33]);
+        assertEquals("24.5 25.5 26.5", full[34]);
+
+        String[] partial = rows[1].split(",", -1);
+        assertEquals(35, partial.length);
+        assertEquals("-1.25", partial[10]);
+        assertEquals("3.0", partial[11]);
+        assertEquals("", partial[12]);
+        assertEquals("", partial[34]);
+    }
+
+    @Test
+    public void testRollupFillsItsColumns() throws IOException {
+        Weather weather = new Weather(1, DATE, 41.88f, -87.62f, "Chicago", "Illinois", null);
+        weather.setRollup(new TemperatureRollup(-3.5, 12.25, 4.0, 24));
+        csv.write(weather);
+        csv.write(new Weather(2, DATE, 41.88f, -87.62f, "Chicago", "Illinois", Collections.singletonList(7.0)));
+
+        String[] rows = out.toString().split("\n");
+        assertEquals(Arrays.asList("-3.5", "12.25", "4.0", "24", ""),
+                Arrays.asList(rows[0].split(",", -1)).subList(6, 11));
+        assertEquals(Arrays.asList("", "", "", "", "7.0"),
+                Arrays.asList(rows[1].split(",", -1)).subList(6, 11));
+    }
+}
@@ -0,0 +1,76 @@
+package com.hackerrank.weather.index;
+
+import com.hackerrank.weather.model.Weather;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class SpatialIndexTest {
+    private static final LocalDate DAY = LocalDate.of(2019, 6, 12);
+
+    private final SpatialIndex index = new SpatialIndex(0.5);
+
+    @Test
+    public void testSavedAgainLeavesItsPreviousPosition() {
+        index.add(weather(1, DAY, 41.88f, -87.62f));
+        index.add(weather(2, DAY, 41.88f, -87.62f));
+        index.add(weather(1, DAY, 51.51f, -0.12f));
+
+        assertEquals(Collections.singletonList(2), findWithin(41.88, -87.62, null));
+        assertEquals(Collections.singletonList(1), findWithin(51.51, -0.12, null));
+        assertEquals(Arrays.asList(1, 2), idsOf(index.findNearest(51.51, -0.12, 5, null)));
+    }
+
+    @Test
+    public void testSavedAgainLeavesItsPreviousDay() {
+        index.add(weather(1, DAY, 41.88f, -87.62f));
+        index.add(weather(1, DAY.plusDays(1), 41.88f, -87.62f));
+        // Saved again unchanged.
+        index.add(weather(1, DAY.plusDays(1), 41.88f, -87.62f));
+
+        assertEquals(Collections.emptyList(), findWithin(41.88, -87.62, DAY));
+        assertEquals(Collections.singletonList(1), findWithin(41.88, -87.62, DAY.plusDays(1)));
+        assertEquals(Collections.singletonList(1), findWithin(41.88, -87.62, null));
+    }
+
+    @Test
+    public void testSavedAgainWithoutPositionIsLeftOut() {
+        index.add(weather(1, DAY, 41.88f, -87.62f));
+        index.add(weather(1, DAY, null, null));
+
+        assertEquals(Collections.emptyList(), findWithin(41.88, -87.62, null));
+
+        index.add(weather(1, DAY, 41.88f, -87.62f));
+        assertEquals(Collections.singletonList(1), findWithin(41.88, -87.62, null));
+    }
+
+    @Test
+    public void testDroppedRecordSavedAgainIsFoundOnce() {
+        index.add(weather(1, DAY, 41.88f, -87.62f));
+        index.dropBefore((int) DAY.plusDays(1).toEpochDay());
+        index.add(weather(1, DAY.plusDays(1), 41.88f, -87.62f));
+
+        assertEquals(Collections.singletonList(1), findWithin(41.88, -87.62, null));
+    }
+
+    private List<Integer> findWithin(double lat, double lon, LocalDate date) {
+        return idsOf(index.findWithin(lat, lon, 10, date));
+    }
+
+    private static List<Integer> idsOf(List<SpatialIndex.Neighbor> neighbors) {
+        return neighbors.stream().map(SpatialIndex.Neighbor::getId).collect(Collectors.toList());
+    }
+
+    private static Weather weather(int id, LocalDate day, Float lat, Float lon) {
+        Date date = Date.from(day.atStartOfDay(ZoneId.of(Weather.TIME_ZONE)).toInstant());
+        return new Weather(id, date, lat, lon, "Chicago", "Illinois", Collections.singletonList(20.0));
+    }
+}
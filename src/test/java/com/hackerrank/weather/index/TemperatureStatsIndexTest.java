@@ -0,0 +1,117 @@
+package com.hackerrank.weather.index;
+
+import com.hackerrank.weather.model.StatsBucket;
+import com.hackerrank.weather.model.TemperatureRollup;
+import com.hackerrank.weather.model.TemperatureStats;
+import com.hackerrank.weather.model.Weather;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TemperatureStatsIndexTest {
+    private static final LocalDate DAY = LocalDate.of(2019, 6, 12);
+
+    private final TemperatureStatsIndex index = new TemperatureStatsIndex();
+
+    @Test
+    public void testSavedAgainReplacesItsContribution() {
+        index.add(weather(1, DAY, "Chicago", 10.0, 30.0));
+        index.add(weather(2, DAY, "Chicago", 20.0));
+        index.add(weather(1, DAY, "Chicago", 15.0, 25.0));
+
+        assertStats(15.0, 25.0, 20.0, 3, find(StatsBucket.DAY));
+        assertStats(15.0, 25.0, 20.0, 3, find(StatsBucket.MONTH));
+    }
+
+    @Test
+    public void testSavedAgainMovesToItsNewBucket() {
+        index.add(weather(1, DAY, "Chicago", 10.0));
+        index.add(weather(2, DAY, "Chicago", 20.0));
+        index.add(weather(1, DAY.plusDays(1), "chicago", 30.0));
+
+        List<TemperatureStats> stats = find(StatsBucket.DAY);
+        assertEquals(2, stats.size());
+        assertEquals(DAY, stats.get(0).getStart());
+        assertStats(20.0, 20.0, 20.0, 1, stats.subList(0, 1));
+        assertEquals(DAY.plusDays(1), stats.get(1).getStart());
+        assertStats(30.0, 30.0, 30.0, 1, stats.subList(1, 2));
+    }
+
+    @Test
+    public void testEmptiedBucketIsNotReported() {
+        index.add(weather(1, DAY, "Chicago", 10.0));
+        index.add(weather(1, DAY, "Chicago"));
+
+        assertTrue(find(StatsBucket.DAY).isEmpty());
+    }
+
+    @Test
+    public void testDownsampledRecordIsCountedOnce() {
+        Weather weather = weather(1, DAY, "Chicago", 10.0, 20.0, 30.0);
+        index.add(weather);
+        weather.setRollup(TemperatureRollup.of(weather.getTemperatures()));
+        weather.setTemperatures(null);
+        index.add(weather);
+
+        assertStats(10.0, 30.0, 20.0, 3, find(StatsBucket.WEEK));
+    }
+
+    @Test
+    public void testAnyIdIsAccepted() {
+        index.add(weather(-5, DAY, "Chicago", 10.0));
+        index.add(weather(Integer.MAX_VALUE, DAY, "Chicago", 20.0));
+        index.add(weather(-5, DAY, "Chicago", 10.0));
+
+        assertStats(10.0, 20.0, 15.0, 2, find(StatsBucket.DAY));
+    }
+
+    @Test
+    public void testUndatedRecordIsLeftOut() {
+        index.add(weather(1, null, "Chicago", 10.0));
+
+        assertTrue(find(StatsBucket.DAY).isEmpty());
+    }
+
+    @Test
+    public void testRecordWithoutCityIsLeftOut() {
+        index.add(weather(1, DAY, null, 10.0));
+        index.add(weather(2, DAY, "Chicago", 20.0));
+        assertStats(20.0, 20.0, 20.0, 1, find(StatsBucket.DAY));
+
+        // Saved again without its city, it leaves its bucket.
+        index.add(weather(2, DAY, null, 20.0));
+        assertTrue(find(StatsBucket.DAY).isEmpty());
+    }
+
+    @Test
+    public void testDroppedRecordSavedAgainIsCountedOnce() {
+        index.add(weather(1, DAY, "Chicago", 10.0));
+        index.dropBefore((int) DAY.plusDays(1).toEpochDay());
+        index.add(weather(1, DAY.plusDays(1), "Chicago", 20.0));
+
+        assertStats(20.0, 20.0, 20.0, 1, find(StatsBucket.DAY));
+    }
+
+    private List<TemperatureStats> find(StatsBucket bucket) {
+        return index.find(null, bucket, null, null);
+    }
+
+    private static void assertStats(double min, double max, double mean, long count, List<TemperatureStats> stats) {
+        assertEquals(1, stats.size());
+        assertEquals(min, stats.get(0).getMin(), 1e-9);
+        assertEquals(max, stats.get(0).getMax(), 1e-9);
+        assertEquals(mean, stats.get(0).getMean(), 1e-9);
+        assertEquals(count, stats.get(0).getCount());
+    }
+
+    private static Weather weather(int id, LocalDate day, String city, Double... temperatures) {
+        Date date = day == null ? null : Date.from(day.atStartOfDay(ZoneId.of(Weather.TIME_ZONE)).toInstant());
+        return new Weather(id, date, 41.8f, -87.6f, city, "Illinois", Arrays.asList(temperatures));
+    }
+}
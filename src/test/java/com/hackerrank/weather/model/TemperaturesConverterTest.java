@@ -0,0 +1,59 @@
+package com.hackerrank.weather.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TemperaturesConverterTest {
+    private final TemperaturesConverter converter = new TemperaturesConverter();
+
+    @Test
+    public void testNullStaysNull() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    public void testEmptyReadingsRoundTrip() {
+        byte[] packed = converter.convertToDatabaseColumn(new double[0]);
+
+        assertEquals(0, packed.length);
+        assertEquals(0, converter.convertToEntityAttribute(packed).length);
+    }
+
+    @Test
+    public void testSpecialValuesRoundTripBitForBit() {
+        assertRoundTrip(new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0, 0.0,
+                Double.MIN_VALUE, -Double.MAX_VALUE, 21.5, -3.25});
+    }
+
+    @Test
+    public void testLongReadingsRoundTrip() {
+        double[] temperatures = new double[10_000];
+        for (int i = 0; i < temperatures.length; i++) {
+            temperatures[i] = (i - 5_000) / 7.0;
+        }
+
+        assertRoundTrip(temperatures);
+    }
+
+    @Test
+    public void testReadingsArePackedBigEndianEightBytesEach() {
+        // Stored columns depend on this layout: changing it needs a migration.
+        byte[] packed = converter.convertToDatabaseColumn(new double[]{1.0, -2.0});
+
+        assertArrayEquals(new byte[]{0x3f, (byte) 0xf0, 0, 0, 0, 0, 0, 0, (byte) 0xc0, 0, 0, 0, 0, 0, 0, 0}, packed);
+    }
+
+    private void assertRoundTrip(double[] temperatures) {
+        byte[] packed = converter.convertToDatabaseColumn(temperatures);
+        assertEquals(temperatures.length * Double.BYTES, packed.length);
+
+        double[] read = converter.convertToEntityAttribute(packed);
+        assertEquals(temperatures.length, read.length);
+        for (int i = 0; i < temperatures.length; i++) {
+            // Raw bits, so that NaN payloads and the sign of zero are checked too.
+            assertEquals("Reading " + i, Double.doubleToRawLongBits(temperatures[i]), Double.doubleToRawLongBits(read[i]));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.hackerrank.weather.store;
+
+import com.hackerrank.weather.model.Weather;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LogSegmentTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LogSegment segment;
+
+    @After
+    public void tearDown() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    @Test
+    public void testFramesAreReadAsTheyAreAppended() throws IOException {
+        segment = new LogSegment(folder.getRoot().toPath(), 0);
+        List<Long> offsets = new ArrayList<>();
+        // Past the first remap, with each frame read right after it is appended.
+        for (int id = 1; segment.getSize() < LogSegment.REMAP_BYTES * 3 / 2; id++) {
+            offsets.add(segment.append(ByteBuffer.wrap(WeatherCodec.encode(weather(id)))));
+            assertEquals(id, (int) WeatherCodec.decode(segment.readFrame(offsets.get(id - 1))).getId());
+            if (id == 1) {
+                // Maps the segment, so that the next frames are written past the mapping.
+                segment.read(0);
+            }
+        }
+
+        assertFramesRead(offsets);
+        segment.seal();
+        assertFramesRead(offsets);
+    }
+
+    @Test
+    public void testReadReturnsEveryFrame() throws IOException {
+        segment = new LogSegment(folder.getRoot().toPath(), 0);
+        segment.append(ByteBuffer.wrap(WeatherCodec.encode(weather(1))));
+        segment.read(0);
+        long second = segment.append(ByteBuffer.wrap(WeatherCodec.encode(weather(2))));
+
+        ByteBuffer buffer = segment.read(0);
+        assertEquals(segment.getSize(), buffer.remaining());
+        buffer.position((int) second);
+        assertEquals(2, (int) WeatherCodec.decode(buffer).getId());
+    }
+
+    private void assertFramesRead(List<Long> offsets) throws IOException {
+        for (int i = 0; i < offsets.size(); i++) {
+            ByteBuffer frame = segment.readFrame(offsets.get(i));
+            assertEquals(WeatherCodec.check(frame), frame.remaining());
+            assertEquals(i + 1, (int) WeatherCodec.decode(frame).getId());
+        }
+    }
+
+    private static Weather weather(int id) {
+        double[] temperatures = new double[24];
+        Arrays.fill(temperatures, id);
+        Weather weather = new Weather(id, null, 41.8f, -87.6f, "Chicago", "Illinois", Collections.emptyList());
+        weather.setTemperatures(temperatures);
+        return weather;
+    }
+}
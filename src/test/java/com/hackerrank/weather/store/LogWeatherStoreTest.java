@@ -0,0 +1,410 @@
+package com.hackerrank.weather.store;
+
+import com.hackerrank.weather.model.TemperatureRollup;
+import com.hackerrank.weather.model.Weather;
+import com.hackerrank.weather.model.WeatherCursor;
+import com.hackerrank.weather.model.WeatherQuery;
+import com.hackerrank.weather.model.WeatherSort;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class LogWeatherStoreTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2019, 6, 1);
+    private static final List<String> CITIES = Arrays.asList("Chicago", "Dallas", "Denver");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LogWeatherStore store;
+
+    @After
+    public void tearDown() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testRecordsSurviveRestart() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        List<Weather> saved = store.saveAll(generate(100));
+        store.close();
+
+        store = open(1 << 20, 1_000_000);
+        assertStored(saved);
+    }
+
+    @Test
+    public void testRecordsSurviveCrashWithoutSnapshot() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        List<Weather> saved = store.saveAll(generate(100));
+        crash();
+
+        assertFalse(Files.exists(directory().resolve(LogWeatherStore.SNAPSHOT_FILE)));
+        store = open(1 << 20, 1_000_000);
+        assertStored(saved);
+    }
+
+    @Test
+    public void testTornRecordIsDroppedOnRecovery() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        List<Weather> saved = store.saveAll(generate(10));
+        crash();
+
+        // A crash in the middle of the last append leaves part of a record.
+        Path segment = lastSegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        store = open(1 << 20, 1_000_000);
+        assertStored(saved.subList(0, 9));
+        assertFalse(store.findById(saved.get(9).getId()).isPresent());
+
+        Weather next = store.save(generate(1).get(0));
+        assertEquals(saved.get(9).getId(), next.getId());
+        crash();
+
+        store = open(1 << 20, 1_000_000);
+        assertStored(Collections.singletonList(next));
+    }
+
+    @Test
+    public void testCorruptRecordIsDroppedOnRecovery() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        List<Weather> saved = store.saveAll(generate(10));
+        crash();
+
+        Path segment = lastSegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(~last);
+        }
+
+        store = open(1 << 20, 1_000_000);
+        assertStored(saved.subList(0, 9));
+        assertEquals(9, store.findAll(query(null, WeatherSort.ID)).size());
+    }
+
+    @Test
+    public void testRecoveryReplaysFromSnapshot() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        List<Weather> saved = new ArrayList<>(store.saveAll(generate(50)));
+        store.snapshot();
+        saved.addAll(store.saveAll(generate(30)));
+        crash();
+
+        store = open(1 << 20, 1_000_000);
+        assertStored(saved);
+        assertEquals(80, store.findAll(query(null, WeatherSort.ID)).size());
+    }
+
+    @Test
+    public void testDamagedSnapshotIsIgnored() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        List<Weather> saved = store.saveAll(generate(50));
+        store.snapshot();
+        crash();
+
+        Path snapshot = directory().resolve(LogWeatherStore.SNAPSHOT_FILE);
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.toFile(), "rw")) {
+            file.seek(file.length() / 2);
+            int middle = file.read();
+            file.seek(file.length() / 2);
+            file.write(~middle);
+        }
+
+        store = open(1 << 20, 1_000_000);
+        assertStored(saved);
+    }
+
+    @Test
+    public void testSegmentsRollAndSurviveRestart() throws IOException {
+        store = open(4096, 1_000_000);
+        List<Weather> saved = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            saved.addAll(store.saveAll(generate(10)));
+        }
+        crash();
+
+        try (Stream<Path> files = Files.list(directory())) {
+            assertTrue(files.filter(file -> file.toString().endsWith(LogSegment.SUFFIX)).count() > 1);
+        }
+        store = open(4096, 1_000_000);
+        assertStored(saved);
+    }
+
+    @Test
+    public void testSavingAnExistingIdReplacesIt() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        Weather weather = store.save(generate(1).get(0));
+        Weather moved = new Weather(weather.getId(), toDate(FIRST_DAY.plusDays(3)), 1.5f, 2.5f, "Boston", "Massachusetts",
+                Collections.singletonList(20.5));
+        store.save(moved);
+        crash();
+
+        store = open(1 << 20, 1_000_000);
+        assertStored(Collections.singletonList(moved));
+        assertTrue(store.findAll(query(weather.getCityKey(), WeatherSort.ID)).isEmpty());
+        assertEquals(1, store.findAll(query("boston", WeatherSort.ID)).size());
+    }
+
+    @Test
+    public void testQueriesMatchInsertionOrder() throws IOException {
+        store = open(1 << 20, 10);
+        List<Weather> saved = store.saveAll(generate(60));
+        store.close();
+
+        store = open(1 << 20, 10);
+        List<Weather> chicago = saved.stream().filter(weather -> weather.getCity().equals("Chicago"))
+                .sorted(Comparator.comparing(Weather::getEpochDay).reversed().thenComparing(Weather::getId))
+                .collect(Collectors.toList());
+        assertEquals(ids(chicago), ids(store.findAll(query("chicago", WeatherSort.DATE_DESC))));
+    }
+
+    @Test
+    public void testUndatedRecordsAreFoundAsByTheJpaStore() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        List<Integer> dated = ids(store.saveAll(generate(3)));
+        int undated = store.save(new Weather(null, 41.8f, -87.6f, "Chicago", "Illinois",
+                Collections.singletonList(20.5))).getId();
+        int chicago = dated.get(0);
+
+        assertUndatedRecordFound(dated, undated, chicago);
+        // The records of the days before the horizon go, not the undated ones.
+        store.dropBefore((int) FIRST_DAY.toEpochDay());
+        store.close();
+
+        // From the snapshot, then from the log alone.
+        store = open(1 << 20, 1_000_000);
+        assertUndatedRecordFound(dated, undated, chicago);
+        crash();
+        Files.delete(directory().resolve(LogWeatherStore.SNAPSHOT_FILE));
+        store = open(1 << 20, 1_000_000);
+        assertUndatedRecordFound(dated, undated, chicago);
+    }
+
+    @Test
+    public void testDroppedRecordsStayDroppedOnReplay() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        List<Weather> saved = store.saveAll(generate(70));
+        int horizon = (int) FIRST_DAY.plusDays(3).toEpochDay();
+        List<Weather> kept = saved.stream().filter(weather -> weather.getEpochDay() >= horizon).collect(Collectors.toList());
+        assertEquals(saved.size() - kept.size(), store.dropBefore(horizon));
+        store.close();
+
+        Files.delete(directory().resolve(LogWeatherStore.SNAPSHOT_FILE));
+        store = open(1 << 20, 1_000_000);
+        assertStored(kept);
+        assertEquals(ids(kept), ids(store.findAll(query(null, WeatherSort.ID))));
+    }
+
+    @Test
+    public void testUpdatesAreBuiltFromTheCurrentRecords() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        List<Weather> saved = store.saveAll(generate(3));
+        Weather second = saved.get(1);
+        store.save(new Weather(second.getId(), second.getDate(), second.getLat(), second.getLon(), "Oakland",
+                second.getState(), Collections.singletonList(20.0)));
+
+        List<Weather> updated = store.updateAll(ids(saved), weather -> weather.getCity().equals("Oakland") ? null
+                : new Weather(weather.getId(), weather.getDate(), weather.getLat(), weather.getLon(),
+                weather.getCity().toUpperCase(Locale.ROOT), weather.getState(), null));
+        store.close();
+
+        assertEquals(Arrays.asList(saved.get(0).getId(), saved.get(2).getId()), ids(updated));
+        store = open(1 << 20, 1_000_000);
+        assertEquals("CHICAGO", store.findById(saved.get(0).getId()).map(Weather::getCity).orElse(null));
+        assertEquals("Oakland", store.findById(second.getId()).map(Weather::getCity).orElse(null));
+        assertEquals("DENVER", store.findById(saved.get(2).getId()).map(Weather::getCity).orElse(null));
+    }
+
+    @Test
+    public void testRecordsBeforeTheHorizonAreRefused() throws IOException {
+        store = open(1 << 20, 1_000_000);
+        store.saveAll(generate(7));
+        LocalDate horizon = FIRST_DAY.plusDays(3);
+        store.dropBefore((int) horizon.toEpochDay());
+        List<Weather> kept = store.findAll(query(null, WeatherSort.ID));
+
+        assertRefused(generate(7));
+        assertEquals(ids(kept), ids(store.findAll(query(null, WeatherSort.ID))));
+        List<Weather> saved = store.saveAll(generate(4, horizon));
+        store.close();
+
+        store = open(1 << 20, 1_000_000);
+        assertRefused(generate(1));
+        assertStored(saved);
+        assertEquals(kept.size() + saved.size(), store.findAll(query(null, WeatherSort.ID)).size());
+    }
+
+    @Test
+    public void testSegmentsOfDroppedRecordsAreDeleted() throws IOException {
+        store = open(4096, 1_000_000);
+        List<Weather> dropped = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            dropped.addAll(store.saveAll(generate(10)));
+        }
+        List<Weather> kept = store.saveAll(generate(10, FIRST_DAY.plusMonths(1)));
+        long segmentCount = countSegments();
+
+        assertEquals(dropped.size(), store.dropBefore((int) FIRST_DAY.plusMonths(1).toEpochDay()));
+        store.close();
+
+        assertTrue(countSegments() < segmentCount);
+        store = open(4096, 1_000_000);
+        assertStored(kept);
+        assertEquals(ids(kept), ids(store.findAll(query(null, WeatherSort.ID))));
+    }
+
+    @Test
+    public void testDownsampledRecordsFreeTheirSegments() throws IOException {
+        store = open(4096, 1_000_000);
+        List<Weather> saved = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            saved.addAll(store.saveAll(generate(10)));
+        }
+        long segmentCount = countSegments();
+
+        List<Weather> rollups = saved.stream().map(weather -> {
+            Weather rollup = new Weather(weather.getId(), weather.getDate(), weather.getLat(), weather.getLon(),
+                    weather.getCity(), weather.getState(), null);
+            rollup.setRollup(TemperatureRollup.of(weather.getTemperatures()));
+            return rollup;
+        }).collect(Collectors.toList());
+        store.saveAll(rollups);
+        store.compact();
+        assertTrue(countSegments() < segmentCount);
+        crash();
+
+        store = open(4096, 1_000_000);
+        assertStored(rollups);
+        Weather first = store.findById(saved.get(0).getId()).orElseThrow(AssertionError::new);
+        assertEquals(-3.0, first.getRollup().getMin(), 0);
+        assertEquals(12.25, first.getRollup().getMax(), 0);
+        assertEquals((10.5 + 12.25 - 3.0) / 3, first.getRollup().getMean(), 1e-9);
+        assertEquals(3, (int) first.getRollup().getCount());
+    }
+
+    /**
+     * Drops the store without the snapshot and the closing it takes on shutdown.
+     */
+    private void crash() {
+        store = null;
+    }
+
+    private LogWeatherStore open(long segmentBytes, int snapshotRecords) throws IOException {
+        return new LogWeatherStore(directory().toString(), segmentBytes, true, snapshotRecords);
+    }
+
+    private Path directory() {
+        return folder.getRoot().toPath().resolve("store");
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory())) {
+            return files.filter(file -> file.toString().endsWith(LogSegment.SUFFIX)).count();
+        }
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory())) {
+            return files.filter(file -> file.toString().endsWith(LogSegment.SUFFIX)).max(Comparator.naturalOrder()).get();
+        }
+    }
+
+    private void assertRefused(List<Weather> weathers) {
+        try {
+            store.saveAll(weathers);
+            fail("Saved records before the horizon");
+        } catch (DataIntegrityViolationException e) {
+            // Expected.
+        }
+    }
+
+    private void assertStored(List<Weather> expected) {
+        for (Weather weather : expected) {
+            Weather actual = store.findById(weather.getId()).orElseThrow(AssertionError::new);
+            assertEquals(weather.getDate(), actual.getDate());
+            assertEquals(weather.getLat(), actual.getLat());
+            assertEquals(weather.getLon(), actual.getLon());
+            assertEquals(weather.getCity(), actual.getCity());
+            assertEquals(weather.getState(), actual.getState());
+            assertArrayEquals(weather.getTemperatures(), actual.getTemperatures(), 0);
+            assertEquals(weather.getRollup() == null, actual.getRollup() == null);
+        }
+    }
+
+    /**
+     * Checks the results the {@code jpa} store gives for the same records, where undated records sort as nulls:
+     * first by date ascending, last by date descending, and out of date ranges.
+     */
+    private void assertUndatedRecordFound(List<Integer> dated, int undated, int chicago) {
+        List<Integer> byId = new ArrayList<>(dated);
+        byId.add(undated);
+        List<Integer> byDateDesc = new ArrayList<>(dated);
+        Collections.reverse(byDateDesc);
+        byDateDesc.add(undated);
+
+        assertEquals(byId, ids(store.findAll(query(null, WeatherSort.ID))));
+        assertEquals(Arrays.asList(undated, dated.get(0), dated.get(1), dated.get(2)),
+                ids(store.findAll(query(null, WeatherSort.DATE_ASC))));
+        assertEquals(byDateDesc, ids(store.findAll(query(null, WeatherSort.DATE_DESC))));
+        assertEquals(Arrays.asList(chicago, undated), ids(store.findAll(query("chicago", WeatherSort.ID))));
+        assertEquals(Arrays.asList(undated, chicago), ids(store.findAll(query("chicago", WeatherSort.DATE_ASC))));
+        assertEquals(Arrays.asList(chicago, undated), ids(store.findAll(query("chicago", WeatherSort.DATE_DESC))));
+        assertEquals(dated, ids(store.findAll(new WeatherQuery(FIRST_DAY, null, null, WeatherSort.ID, null, null))));
+        assertEquals(dated.subList(0, 2),
+                ids(store.findAll(new WeatherQuery(null, FIRST_DAY.plusDays(1), null, WeatherSort.DATE_ASC, null, null))));
+
+        // Keyset pages from and to the undated record.
+        WeatherCursor afterUndated = WeatherCursor.of(store.findById(undated).get());
+        assertEquals(dated, ids(store.findAll(new WeatherQuery(null, null, null, WeatherSort.DATE_ASC, afterUndated, null))));
+        assertTrue(store.findAll(new WeatherQuery(null, null, null, WeatherSort.DATE_DESC, afterUndated, null)).isEmpty());
+        WeatherCursor afterFirstDay = WeatherCursor.of(store.findById(dated.get(0)).get());
+        assertEquals(Collections.singletonList(undated),
+                ids(store.findAll(new WeatherQuery(null, null, null, WeatherSort.DATE_DESC, afterFirstDay, null))));
+    }
+
+    private static WeatherQuery query(String cityKey, WeatherSort sort) {
+        return new WeatherQuery(null, null, cityKey == null ? null : Collections.singletonList(cityKey), sort, null, null);
+    }
+
+    private static List<Integer> ids(List<Weather> weathers) {
+        return weathers.stream().map(Weather::getId).collect(Collectors.toList());
+    }
+
+    private static List<Weather> generate(int count) {
+        return generate(count, FIRST_DAY);
+    }
+
+    private static List<Weather> generate(int count, LocalDate firstDay) {
+        List<Weather> weathers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            weathers.add(new Weather(toDate(firstDay.plusDays(i % 7)), 41.8f + i, -87.6f - i, CITIES.get(i % CITIES.size()),
+                    "State " + i, Arrays.asList(10.5 + i, 12.25, -3.0)));
+        }
+        return weathers;
+    }
+
+    private static Date toDate(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.of(Weather.TIME_ZONE)).toInstant());
+    }
+}